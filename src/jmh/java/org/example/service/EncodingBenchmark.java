@@ -0,0 +1,73 @@
+package org.example.service;
+
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+
+    @Param({"100", "10000"})
+    int historyLength;
+
+    private final Gson gson = new Gson();
+    private final ResponseJson responseJson = new ResponseJson();
+    private final ByteArrayOutputStream sink = new ByteArrayOutputStream(256);
+    private RPSResolver.Response response;
+    private RPSResolver.DetailedStats detailedStats;
+    private RPSResolver sessionResolver;
+    private byte[] sessionBlob;
+
+    @Setup
+    public void setUp() throws IOException {
+        RPSResolver resolver = new RPSResolver();
+        ResolverBenchmark.play(resolver, historyLength);
+        response = resolver.play("ROCK");
+        detailedStats = resolver.stop();
+
+        sessionResolver = new RPSResolver();
+        ResolverBenchmark.play(sessionResolver, historyLength);
+        sessionBlob = serializeSession();
+    }
+
+    @Benchmark
+    public String gsonResponse() {
+        return gson.toJson(response);
+    }
+
+    @Benchmark
+    public int responseJson() throws IOException {
+        sink.reset();
+        responseJson.write(response);
+        responseJson.writeTo(sink);
+        return sink.size();
+    }
+
+    @Benchmark
+    public String gsonDetailedStats() {
+        return gson.toJson(detailedStats);
+    }
+
+    @Benchmark
+    public byte[] serializeSession() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(sessionResolver);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public Object deserializeSession() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(sessionBlob))) {
+            return in.readObject();
+        }
+    }
+}
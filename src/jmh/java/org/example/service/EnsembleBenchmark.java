@@ -0,0 +1,53 @@
+package org.example.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One prediction and update of an ensemble with a growing number of members. Run with
+ * {@code -PjmhProfilers=gc} to check that a round allocates nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnsembleBenchmark {
+    private static final RPSResolver.Move[] MOVES = RPSResolver.Move.values();
+
+    @Param({"1", "3", "6", "9"})
+    int members;
+
+    @Param({"1000", "100000"})
+    int historyLength;
+
+    private EnsemblePredictor ensemble;
+    private MoveHistory moves;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        Predictor[] all = {
+                Predictors.markov(2), new LongestMatchPredictor(), Predictors.markov(1), Predictors.markov(3),
+                Predictors.frequency(), Predictors.aiLast(), Predictors.aiFavourite(), Predictors.markov(4),
+                Predictors.markov(6)
+        };
+        ensemble = new EnsemblePredictor(Arrays.copyOf(all, members));
+        moves = new MoveHistory();
+        for (int n = 0; n < historyLength; n++) {
+            round();
+        }
+    }
+
+    @Benchmark
+    public int round() {
+        int predicted = ensemble.predict(moves, i % 3);
+        // pseudo-random player, so matches and scores keep changing
+        moves.add(MOVES[((i * 31 + (i >>> 3)) & Integer.MAX_VALUE) % 7 % 3]);
+        ensemble.update(moves, predicted < 0 ? 0 : predicted);
+        return ++i;
+    }
+}
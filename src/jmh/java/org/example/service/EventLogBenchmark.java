@@ -0,0 +1,67 @@
+package org.example.service;
+
+import org.example.eventlog.MoveEventLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of logging every move on the playing threads, compare eventLog=false with eventLog=true.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class EventLogBenchmark {
+    private static final String[] MOVES = {"ROCK", "ROCK", "PAPER", "SCISSORS", "PAPER"};
+
+    @Param({"false", "true"})
+    boolean eventLog;
+
+    private Path directory;
+    private MoveEventLog log;
+
+    @State(Scope.Thread)
+    public static class Player {
+        RPSResolver resolver;
+        int i;
+
+        @Setup
+        public void setUp(EventLogBenchmark benchmark) {
+            resolver = new RPSResolver(2, null, benchmark.log);
+            ResolverBenchmark.play(resolver, 1000);
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        if (eventLog) {
+            directory = Files.createTempDirectory("move-events");
+            log = new MoveEventLog(directory.toString(), 1 << 16, 64 << 20, 4);
+            log.start();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (log != null) {
+            log.close();
+            for (Path segment : MoveEventLog.segments(directory)) {
+                Files.delete(segment);
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Benchmark
+    public RPSResolver.Response play(Player player) {
+        return player.resolver.play(MOVES[player.i++ % MOVES.length]);
+    }
+}
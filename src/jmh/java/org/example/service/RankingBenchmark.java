@@ -0,0 +1,40 @@
+package org.example.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RankingBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int sessions;
+
+    private OverallStatsKeeper statsKeeper;
+    private String[] sessionIds;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        Random rand = new Random(42);
+        statsKeeper = new OverallStatsKeeper(2 * sessions, OverallStatsKeeper.DEFAULT_TTL, Clock.systemUTC());
+        sessionIds = new String[sessions];
+        for (int s = 0; s < sessions; s++) {
+            sessionIds[s] = "session-" + s;
+            RPSResolver.BaseStats stats = new RPSResolver.BaseStats(rand.nextInt(100), rand.nextInt(100), rand.nextInt(100) + 1);
+            statsKeeper.count(sessionIds[s], new RPSResolver.Response("ROCK", "PAPER", RPSResolver.Decision.DEFEAT, stats));
+        }
+    }
+
+    @Benchmark
+    public double getUserPlace() {
+        return statsKeeper.getUserPlace(sessionIds[i++ % sessions]);
+    }
+}
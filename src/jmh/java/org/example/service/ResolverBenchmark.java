@@ -0,0 +1,45 @@
+package org.example.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResolverBenchmark {
+    private static final String[] MOVES = {"ROCK", "ROCK", "PAPER", "SCISSORS", "PAPER"};
+
+    @Param({"0", "1000", "100000"})
+    int historyLength;
+
+    @Param({"1", "2", "6"})
+    int markovOrder;
+
+    @Param({"false", "true"})
+    boolean populationPrior;
+
+    private RPSResolver resolver;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        resolver = new RPSResolver(markovOrder, new Random(), populationPrior ? new PopulationModel(markovOrder) : null);
+        play(resolver, historyLength);
+    }
+
+    @Benchmark
+    public RPSResolver.Response play() {
+        return resolver.play(MOVES[i++ % MOVES.length]);
+    }
+
+    static void play(RPSResolver resolver, int moves) {
+        for (int i = 0; i < moves; i++) {
+            resolver.play(MOVES[i % MOVES.length]);
+        }
+    }
+}
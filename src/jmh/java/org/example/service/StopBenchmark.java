@@ -0,0 +1,29 @@
+package org.example.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 50)
+@Fork(1)
+public class StopBenchmark {
+
+    @Param({"1000", "100000"})
+    int historyLength;
+
+    private final RPSResolver resolver = new RPSResolver();
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        ResolverBenchmark.play(resolver, historyLength);
+    }
+
+    @Benchmark
+    public RPSResolver.DetailedStats stop() {
+        return resolver.stop();
+    }
+}
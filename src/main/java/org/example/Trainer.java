@@ -0,0 +1,57 @@
+package org.example;
+
+import org.example.service.ModelTrainer;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Trains a transition model from archived games without starting the server. Point
+ * {@code rps.model.file} at the result to seed the population prior with it.
+ */
+public class Trainer {
+    private static final int MAX_ORDER = 6;
+
+    /**
+     * Usage: Trainer [model file] [CSV files, move event log segments or directories of them...]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: Trainer <model file> <history file or directory>...");
+            System.exit(2);
+        }
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            Path input = Paths.get(args[i]);
+            if (Files.isDirectory(input)) {
+                List<Path> files = new ArrayList<>();
+                try (DirectoryStream<Path> histories = Files.newDirectoryStream(input, "*.{csv,log}")) {
+                    histories.forEach(files::add);
+                }
+                Collections.sort(files);
+                inputs.addAll(files);
+            } else {
+                inputs.add(input);
+            }
+        }
+
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            ModelTrainer.Counts counts = new ModelTrainer(MAX_ORDER).train(inputs, pool);
+            counts.write(Paths.get(args[0]));
+            System.out.printf("Trained on %d games, %d moves from %d files in %d ms%n", counts.games(), counts.moves(),
+                    inputs.size(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
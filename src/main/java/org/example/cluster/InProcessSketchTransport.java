@@ -0,0 +1,52 @@
+package org.example.cluster;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Transport for nodes that share a JVM, as in tests.
+ */
+public class InProcessSketchTransport implements SketchTransport {
+    private final Map<String, Published> sketches = new ConcurrentHashMap<>();
+    private final long staleAfterMillis;
+    private final Clock clock;
+
+    public InProcessSketchTransport(Duration staleAfter) {
+        this(staleAfter, Clock.systemUTC());
+    }
+
+    InProcessSketchTransport(Duration staleAfter, Clock clock) {
+        this.staleAfterMillis = staleAfter.toMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    public void publish(String nodeId, byte[] sketch) {
+        sketches.put(nodeId, new Published(clock.millis(), sketch.clone()));
+    }
+
+    @Override
+    public Map<String, byte[]> fetchOthers(String nodeId) {
+        long liveSince = clock.millis() - staleAfterMillis;
+        Map<String, byte[]> others = new HashMap<>();
+        for (Map.Entry<String, Published> entry : sketches.entrySet()) {
+            if (!entry.getKey().equals(nodeId) && entry.getValue().millis >= liveSince) {
+                others.put(entry.getKey(), entry.getValue().sketch);
+            }
+        }
+        return others;
+    }
+
+    private static final class Published {
+        final long millis;
+        final byte[] sketch;
+
+        Published(long millis, byte[] sketch) {
+            this.millis = millis;
+            this.sketch = sketch;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.cluster;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Transport over a directory every node can read and write, such as a network share. Each node
+ * keeps its latest sketch in {@code <node id>.sketch}, replaced atomically, and sketches not
+ * replaced within {@code staleAfter} are considered to belong to nodes that are gone.
+ */
+public class SharedFileSketchTransport implements SketchTransport {
+    private static final String SUFFIX = ".sketch";
+    private static final Pattern NODE_ID = Pattern.compile("[A-Za-z0-9._-]+");
+
+    private final Path directory;
+    private final long staleAfterMillis;
+
+    public SharedFileSketchTransport(Path directory, Duration staleAfter) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.staleAfterMillis = staleAfter.toMillis();
+    }
+
+    @Override
+    public void publish(String nodeId, byte[] sketch) throws IOException {
+        if (!NODE_ID.matcher(nodeId).matches()) {
+            throw new IllegalArgumentException("Node id is not a valid file name: " + nodeId);
+        }
+        Path temp = Files.createTempFile(directory, nodeId, ".tmp");
+        try {
+            Files.write(temp, sketch);
+            Files.move(temp, directory.resolve(nodeId + SUFFIX),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Map<String, byte[]> fetchOthers(String nodeId) throws IOException {
+        long liveSince = System.currentTimeMillis() - staleAfterMillis;
+        Map<String, byte[]> others = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String other = name.substring(0, name.length() - SUFFIX.length());
+                try {
+                    if (!other.equals(nodeId) && Files.getLastModifiedTime(file).toMillis() >= liveSince) {
+                        others.put(other, Files.readAllBytes(file));
+                    }
+                } catch (NoSuchFileException ex) {
+                    // replaced or removed by its node meanwhile
+                }
+            }
+        }
+        return others;
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.cluster;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.example.service.OverallStatsKeeper;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Periodically publishes the win rates of this node and ranks its users against those of the others.
+ */
+public class SketchExchange {
+    private static final Log LOG = LogFactory.getLog(SketchExchange.class);
+
+    private final OverallStatsKeeper statsKeeper;
+    private final SketchTransport transport;
+    private final String nodeId;
+
+    public SketchExchange(OverallStatsKeeper statsKeeper, SketchTransport transport, String nodeId) {
+        this.statsKeeper = statsKeeper;
+        this.transport = transport;
+        this.nodeId = nodeId;
+    }
+
+    @Scheduled(fixedDelayString = "${rps.cluster.exchange-interval-ms:10000}")
+    public void exchange() {
+        try {
+            transport.publish(nodeId, statsKeeper.localSketch());
+            statsKeeper.mergeRemote(transport.fetchOthers(nodeId).values());
+        } catch (Exception ex) {
+            LOG.error("Failed to exchange win rates with the other nodes", ex);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.cluster;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Carries the encoded win rate sketches between the nodes of a cluster.
+ */
+public interface SketchTransport {
+
+    /**
+     * Makes the sketch the latest one of the node, replacing what it published before.
+     */
+    void publish(String nodeId, byte[] sketch) throws IOException;
+
+    /**
+     * @return latest sketch of every other node that published recently, by node id
+     */
+    Map<String, byte[]> fetchOthers(String nodeId) throws IOException;
+}
@@ -0,0 +1,48 @@
+package org.example.config;
+
+import org.example.cluster.InProcessSketchTransport;
+import org.example.cluster.SharedFileSketchTransport;
+import org.example.cluster.SketchExchange;
+import org.example.cluster.SketchTransport;
+import org.example.service.OverallStatsKeeper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Ranks users against the users of every node once {@code rps.cluster.transport} is set to
+ * {@code file} (with {@code rps.cluster.directory}) or {@code in-process}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "rps.cluster.transport")
+public class ClusterConfiguration {
+
+    @Bean
+    public SketchTransport sketchTransport(@Value("${rps.cluster.transport}") String transport,
+                                           @Value("${rps.cluster.directory:}") String directory,
+                                           @Value("${rps.cluster.stale-after:5m}") Duration staleAfter) throws IOException {
+        switch (transport) {
+            case "file":
+                if (directory.isEmpty()) {
+                    throw new IllegalArgumentException("rps.cluster.directory is required for the file transport");
+                }
+                return new SharedFileSketchTransport(Paths.get(directory), staleAfter);
+            case "in-process":
+                return new InProcessSketchTransport(staleAfter);
+            default:
+                throw new IllegalArgumentException("Unknown rps.cluster.transport: " + transport);
+        }
+    }
+
+    @Bean
+    public SketchExchange sketchExchange(OverallStatsKeeper statsKeeper, SketchTransport transport,
+                                         @Value("${rps.cluster.node-id:}") String nodeId) {
+        return new SketchExchange(statsKeeper, transport, nodeId.isEmpty() ? UUID.randomUUID().toString() : nodeId);
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.results.GameResultWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Stores finished games in the {@code GAME_RESULT} table with {@link GameResultWriter}.
+ * Set {@code rps.results.enabled=false} to keep no results.
+ */
+@Configuration
+@ConditionalOnProperty(name = "rps.results.enabled", havingValue = "true", matchIfMissing = true)
+public class GameResultsConfiguration {
+
+    @Bean
+    public GameResultWriter gameResultWriter(
+            DataSource dataSource, PlatformTransactionManager transactionManager, MeterRegistry registry,
+            @Value("${rps.results.schema:classpath:org/example/results/schema.sql}") Resource schema,
+            @Value("${rps.results.queue-size:10000}") int queueSize,
+            @Value("${rps.results.batch-size:500}") int batchSize,
+            @Value("${rps.results.overflow:drop}") String overflow,
+            @Value("${rps.results.block-timeout:50ms}") Duration blockTimeout) {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(schema);
+        populator.setContinueOnError(true); // the table usually exists already
+        DatabasePopulatorUtils.execute(populator, dataSource);
+
+        TransactionTemplate transactions = new TransactionTemplate(transactionManager);
+        transactions.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        GameResultWriter writer = new GameResultWriter(new JdbcTemplate(dataSource), transactions, queueSize, batchSize,
+                GameResultWriter.OverflowPolicy.valueOf(overflow.toUpperCase()), blockTimeout);
+        writer.setFlushTimer(Timer.builder("rps.results.flush")
+                .description("Time to write a batch of game results")
+                .publishPercentileHistogram()
+                .register(registry));
+        Gauge.builder("rps.results.pending", writer, GameResultWriter::pending)
+                .description("Game results waiting to be written")
+                .register(registry);
+        FunctionCounter.builder("rps.results.dropped", writer, GameResultWriter::dropped)
+                .description("Game results dropped because the queue was full or the write failed")
+                .register(registry);
+        writer.start();
+        return writer;
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.session.MailboxSessionRepository;
+import org.example.session.SessionExecutor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The plain JDBC session store, used unless {@code rps.session.write-behind.enabled=true}. It is built here
+ * rather than by Spring Boot so its transactions can be timed: every load, save and delete runs in its own
+ * transaction, so timing the transactions times the session store round trips.
+ */
+@Configuration
+@EnableSpringHttpSession
+@ConditionalOnProperty(name = "rps.session.write-behind.enabled", havingValue = "false", matchIfMissing = true)
+public class JdbcSessionConfiguration {
+
+    private JdbcIndexedSessionRepository repository;
+
+    @Bean
+    public JdbcIndexedSessionRepository jdbcSessionRepository(
+            DataSource dataSource, PlatformTransactionManager transactionManager,
+            @Qualifier("springSessionConversionService") ConversionService conversionService, MeterRegistry registry,
+            @Value("${spring.session.jdbc.schema:classpath:org/springframework/session/jdbc/schema-mysql.sql}") Resource schema,
+            @Value("${spring.session.timeout:30m}") Duration sessionTimeout) {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(schema);
+        populator.setContinueOnError(true); // the tables usually exist already
+        DatabasePopulatorUtils.execute(populator, dataSource);
+
+        Timer storeTimer = SessionStoreMetricsConfiguration.timer(registry, "rps.session.store",
+                "Time spent in session store transactions");
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        TransactionOperations timed = new TransactionOperations() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                long start = System.nanoTime();
+                try {
+                    return template.execute(action);
+                } finally {
+                    storeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+        };
+
+        repository = new JdbcIndexedSessionRepository(new JdbcTemplate(dataSource), timed);
+        repository.setConversionService(conversionService);
+        repository.setDefaultMaxInactiveInterval((int) sessionTimeout.getSeconds());
+        return repository;
+    }
+
+    /**
+     * The repository Spring Session and the game use, saving on the sessions' mailboxes.
+     */
+    @Bean
+    @Primary
+    public MailboxSessionRepository<?> sessionRepository(JdbcIndexedSessionRepository jdbcSessionRepository,
+                                                         SessionExecutor sessionExecutor) {
+        return new MailboxSessionRepository<>(jdbcSessionRepository, sessionExecutor);
+    }
+
+    @Scheduled(cron = "${spring.session.jdbc.cleanup-cron:0 * * * * *}")
+    public void cleanUpExpiredSessions() {
+        if (repository != null) {
+            repository.cleanUpExpiredSessions();
+        }
+    }
+}
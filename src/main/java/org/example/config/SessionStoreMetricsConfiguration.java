@@ -0,0 +1,56 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times how long the session store spends serializing session attributes. {@link JdbcSessionConfiguration}
+ * times the database round trips of the plain JDBC store.
+ */
+@Configuration
+public class SessionStoreMetricsConfiguration {
+
+    @Bean("springSessionConversionService")
+    public ConversionService springSessionConversionService(MeterRegistry registry) {
+        Timer serializeTimer = timer(registry, "rps.session.serialize", "Time to serialize a session attribute");
+        Timer deserializeTimer = timer(registry, "rps.session.deserialize", "Time to deserialize a session attribute");
+        DistributionSummary attributeSize = DistributionSummary.builder("rps.session.attribute.size")
+                .description("Serialized size of a session attribute")
+                .baseUnit("bytes")
+                .register(registry);
+        SerializingConverter serializer = new SerializingConverter();
+        DeserializingConverter deserializer = new DeserializingConverter(getClass().getClassLoader());
+
+        GenericConversionService conversionService = new GenericConversionService();
+        conversionService.addConverter(Object.class, byte[].class, source -> {
+            long start = System.nanoTime();
+            byte[] bytes = serializer.convert(source);
+            serializeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            attributeSize.record(bytes.length);
+            return bytes;
+        });
+        conversionService.addConverter(byte[].class, Object.class, source -> {
+            long start = System.nanoTime();
+            Object attribute = deserializer.convert(source);
+            deserializeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return attribute;
+        });
+        return conversionService;
+    }
+
+    static Timer timer(MeterRegistry registry, String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
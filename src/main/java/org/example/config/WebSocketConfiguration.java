@@ -0,0 +1,37 @@
+package org.example.config;
+
+import org.example.controller.GameSocketHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.support.HttpSessionHandshakeInterceptor;
+
+/**
+ * Serves {@link GameSocketHandler} on {@code /ws/game}. The handshake creates the HTTP session if needed,
+ * so the socket and the HTTP endpoints share one game.
+ */
+@Configuration
+@EnableWebSocket
+public class WebSocketConfiguration implements WebSocketConfigurer {
+
+    private final GameSocketHandler gameSocketHandler;
+
+    @Autowired
+    public WebSocketConfiguration(GameSocketHandler gameSocketHandler) {
+        this.gameSocketHandler = gameSocketHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(gameSocketHandler, "/ws/game")
+                .addInterceptors(handshakeInterceptor());
+    }
+
+    private static HttpSessionHandshakeInterceptor handshakeInterceptor() {
+        HttpSessionHandshakeInterceptor interceptor = new HttpSessionHandshakeInterceptor();
+        interceptor.setCreateSession(true);
+        return interceptor;
+    }
+}
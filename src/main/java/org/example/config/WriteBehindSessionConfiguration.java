@@ -0,0 +1,86 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.example.session.MailboxSessionRepository;
+import org.example.session.SessionExecutor;
+import org.example.session.WriteBehindSessionRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.session.MapSession;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Replaces the JDBC session repository with {@link WriteBehindSessionRepository} on the same tables once
+ * {@code rps.session.write-behind.enabled=true}. Each node serves the sessions from its own memory, so
+ * several nodes need sticky sessions.
+ */
+@Configuration
+@EnableSpringHttpSession
+@ConditionalOnProperty(name = "rps.session.write-behind.enabled", havingValue = "true")
+public class WriteBehindSessionConfiguration {
+    private static final Log LOG = LogFactory.getLog(WriteBehindSessionConfiguration.class);
+
+    @Bean
+    public WriteBehindSessionRepository writeBehindSessionRepository(
+            DataSource dataSource, PlatformTransactionManager transactionManager,
+            @Qualifier("springSessionConversionService") ConversionService conversionService, MeterRegistry registry,
+            @Value("${rps.session.write-behind.schema:classpath:org/springframework/session/jdbc/schema-mysql.sql}") Resource schema,
+            @Value("${rps.session.write-behind.batch-size:500}") int batchSize,
+            @Value("${rps.session.write-behind.flush-interval:1s}") Duration flushInterval,
+            @Value("${rps.session.write-behind.idle-in-memory:10m}") Duration idleInMemory,
+            @Value("${rps.session.write-behind.cleanup-interval:1m}") Duration cleanupInterval,
+            @Value("${spring.session.timeout:30m}") Duration sessionTimeout,
+            @Value("${rps.cluster.transport:}") String clusterTransport) {
+        if (!clusterTransport.isEmpty()) {
+            LOG.warn("Write-behind sessions live in the memory of one node, route each session to one node " +
+                    "with sticky sessions or set rps.session.write-behind.enabled=false");
+        }
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(schema);
+        populator.setContinueOnError(true); // the tables usually exist already
+        DatabasePopulatorUtils.execute(populator, dataSource);
+
+        TransactionTemplate transactions = new TransactionTemplate(transactionManager);
+        transactions.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        WriteBehindSessionRepository repository = new WriteBehindSessionRepository(
+                new JdbcTemplate(dataSource), transactions, conversionService, batchSize, idleInMemory);
+        repository.setDefaultMaxInactiveInterval(sessionTimeout);
+        repository.setFlushTimer(Timer.builder("rps.session.flush")
+                .description("Time to write a batch of sessions")
+                .publishPercentileHistogram()
+                .register(registry));
+        Gauge.builder("rps.session.pending", repository, WriteBehindSessionRepository::pendingWrites)
+                .description("Sessions waiting to be written")
+                .register(registry);
+        repository.start(flushInterval, cleanupInterval);
+        return repository;
+    }
+
+    /**
+     * The repository Spring Session and the game use, saving on the sessions' mailboxes.
+     */
+    @Bean
+    @Primary
+    public MailboxSessionRepository<MapSession> sessionRepository(WriteBehindSessionRepository repository,
+                                                                  SessionExecutor sessionExecutor) {
+        return new MailboxSessionRepository<>(repository, sessionExecutor);
+    }
+}
@@ -3,58 +3,210 @@ package org.example.controller;
 import com.google.gson.Gson;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.example.eventlog.MoveEventLog;
+import org.example.results.GameResultWriter;
+import org.example.service.GameMetrics;
+import org.example.service.GlobalStatsPublisher;
 import org.example.service.OverallStatsKeeper;
+import org.example.service.PopulationModel;
 import org.example.service.RPSResolver;
+import org.example.service.ResponseJson;
+import org.example.session.SessionExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
 @RestController
 public class GameController {
     private static final Log LOG = LogFactory.getLog(GameController.class);
+    private static final int SESSION_TIMEOUT_SECONDS = 7 * 24 * 60 * 60;
+    // one reusable encoder per session worker
+    private static final ThreadLocal<ResponseJson> JSON = ThreadLocal.withInitial(ResponseJson::new);
 
-    private RPSResolver rpsResolver;
+    private SessionRepository<? extends Session> sessions;
     private OverallStatsKeeper statsKeeper;
+    private GameMetrics metrics;
+    private GlobalStatsPublisher globalStats;
+    private SessionExecutor sessionExecutor;
+    private GameResultWriter results;
+    private PopulationModel population;
+    private MoveEventLog events;
+    private int markovOrder;
 
+    /**
+     * Moves and stops of a session run on its {@link SessionExecutor} mailbox, in arrival order, and the
+     * request thread is released until the result is there. The resolver is loaded from the session store
+     * and saved back inside the mailbox, never touched by the request thread.
+     *
+     * @param results stores finished games, null when {@code rps.results.enabled=false}
+     */
     @Autowired
-    public GameController(RPSResolver rpsResolver, OverallStatsKeeper statsKeeper) {
-        this.rpsResolver = rpsResolver;
+    public GameController(SessionRepository<? extends Session> sessions, OverallStatsKeeper statsKeeper,
+                          GameMetrics metrics, GlobalStatsPublisher globalStats, SessionExecutor sessionExecutor,
+                          @Nullable GameResultWriter results, PopulationModel population, MoveEventLog events,
+                          @Value("${rps.markov.order:2}") int markovOrder) {
+        this.sessions = sessions;
         this.statsKeeper = statsKeeper;
+        this.metrics = metrics;
+        this.globalStats = globalStats;
+        this.sessionExecutor = sessionExecutor;
+        this.results = results;
+        this.population = population;
+        this.events = events;
+        this.markovOrder = markovOrder;
     }
 
     private final Gson gson = new Gson();
 
+    /**
+     * The JSON is encoded in the session task, before the next move changes the statistics the response
+     * refers to, and written by the container like any other response body.
+     */
     @PostMapping("/play/{move}")
-    public String play(@PathVariable String move, HttpServletRequest request, HttpServletResponse response) throws IOException {
-        try {
-            request.getSession().setMaxInactiveInterval(7 * 24 * 60 * 60);
-
-            RPSResolver.Response res = rpsResolver.play(move);
-            statsKeeper.count(request.getSession().getId(), res);
-
-            return gson.toJson(res);
-        } catch (Exception ex) {
-            String message = "Playing failed. Your move: " + move;
-            LOG.error(message, ex);
-            response.sendError(400, message);
-            return message;
-        }
+    public CompletableFuture<ResponseEntity<byte[]>> play(@PathVariable String move, HttpServletRequest request) {
+        HttpSession session = request.getSession();
+        session.setMaxInactiveInterval(SESSION_TIMEOUT_SECONDS);
+        String sessionId = session.getId();
+
+        return inSession(sessionId, true, resolver -> {
+            long start = System.nanoTime();
+            RPSResolver.Response res = resolver.play(move);
+            statsKeeper.count(sessionId, res);
+            metrics.recordPlay(res, System.nanoTime() - start);
+            ResponseJson json = JSON.get();
+            json.write(res);
+            return json(json.toByteArray());
+        }).handle((body, ex) -> ex == null ? body : fail(HttpStatus.BAD_REQUEST, "Playing failed. Your move: " + move, ex));
+    }
+
+    @PostMapping("/play")
+    public CompletableFuture<ResponseEntity<byte[]>> playBatch(@RequestBody List<String> moves, HttpServletRequest request) {
+        HttpSession session = request.getSession();
+        session.setMaxInactiveInterval(SESSION_TIMEOUT_SECONDS);
+        String sessionId = session.getId();
+
+        return inSession(sessionId, true, resolver -> {
+            long start = System.nanoTime();
+            RPSResolver.BatchResponse res = resolver.playAll(moves);
+            if (!moves.isEmpty()) {
+                statsKeeper.count(sessionId, res);
+            }
+            metrics.recordBatch(res, System.nanoTime() - start);
+            ResponseJson json = JSON.get();
+            json.write(res);
+            return json(json.toByteArray());
+        }).handle((body, ex) -> ex == null ? body : fail(HttpStatus.BAD_REQUEST, "Playing failed. Your moves: " + moves, ex));
     }
 
     @PutMapping("/stop")
-    public String stop(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        try {
-            RPSResolver.DetailedStats ds = rpsResolver.stop();
-            ds.setBetterThanOtherUsersPercentage(statsKeeper.getUserPlace(request.getSession().getId()));
-            return gson.toJson(ds);
-        } catch (Exception ex) {
-            String msg = "Failed to stop the game";
-            LOG.error(msg, ex);
-            response.sendError(500, msg);
-            return msg;
+    public CompletableFuture<ResponseEntity<byte[]>> stop(HttpServletRequest request) {
+        String sessionId = request.getSession().getId();
+
+        return inSession(sessionId, true, resolver -> {
+            long start = System.nanoTime();
+            RPSResolver.DetailedStats ds = resolver.stop();
+            long placeStart = System.nanoTime();
+            ds.setBetterThanOtherUsersPercentage(statsKeeper.getUserPlace(sessionId));
+            long end = System.nanoTime();
+            metrics.recordUserPlace(end - placeStart);
+            metrics.recordStop(end - start);
+            if (results != null) {
+                results.record(sessionId, ds);
+            }
+            return json(gson.toJson(ds).getBytes(StandardCharsets.UTF_8));
+        }).handle((body, ex) -> ex == null ? body : fail(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to stop the game", ex));
+    }
+
+    // the request's copy of the session may predate the tasks queued before, so the mailbox loads its own
+    private <T> CompletableFuture<T> inSession(String sessionId, boolean save, Function<RPSResolver, T> action) {
+        return sessionExecutor.submit(sessionId, () -> inSession(sessions, sessionId, save, action));
+    }
+
+    private <S extends Session, T> T inSession(SessionRepository<S> sessions, String sessionId, boolean save,
+                                               Function<RPSResolver, T> action) {
+        S session = sessions.findById(sessionId);
+        RPSResolver resolver = session == null ? null : session.getAttribute(GameSocketHandler.RESOLVER_ATTRIBUTE);
+        if (resolver == null) {
+            resolver = new RPSResolver(markovOrder, population, events);
+        }
+        T result = action.apply(resolver);
+        if (save && session != null) {
+            session.setAttribute(GameSocketHandler.RESOLVER_ATTRIBUTE, resolver);
+            sessions.save(session);
         }
+        return result;
+    }
+
+    private static ResponseEntity<byte[]> json(byte[] body) {
+        return ResponseEntity.ok()
+                .contentType(new MediaType("application", "json", StandardCharsets.UTF_8))
+                .contentLength(body.length)
+                .body(body);
+    }
+
+    // completes the request like the other errors, the response itself is only touched by the container
+    private static ResponseEntity<byte[]> fail(HttpStatus status, String message, Throwable ex) {
+        LOG.error(message, ex instanceof CompletionException ? ex.getCause() : ex);
+        return ResponseEntity.status(status)
+                .contentType(new MediaType("text", "plain", StandardCharsets.UTF_8))
+                .body(message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Streams the move letters of the current game as plain text, in chunks, however long the game is.
+     */
+    @GetMapping("/history")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> history(HttpServletRequest request) {
+        return history(request, false);
+    }
+
+    /**
+     * Streams the move letters of the last stopped game, which {@code /stop} only returns run-length encoded.
+     */
+    @GetMapping("/history/last")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> lastHistory(HttpServletRequest request) {
+        return history(request, true);
+    }
+
+    // the moves are copied in the session's mailbox, so streaming them doesn't race with the next move
+    private CompletableFuture<ResponseEntity<StreamingResponseBody>> history(HttpServletRequest request, boolean finished) {
+        return inSession(request.getSession().getId(), false, resolver -> resolver.history(finished))
+                .whenComplete((letters, ex) -> {
+                    if (ex != null) {
+                        LOG.error("Failed to copy the history", ex);
+                    }
+                })
+                .thenApply(letters -> ResponseEntity.ok()
+                        .contentType(new MediaType("text", "plain", StandardCharsets.US_ASCII))
+                        .body(letters::writeTo));
+    }
+
+    /**
+     * Population stats of the last snapshot, refreshed every {@code rps.global-stats.interval-ms}.
+     */
+    @GetMapping("/stats")
+    public void globalStats(HttpServletResponse response) throws IOException {
+        byte[] json = globalStats.json();
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.setContentLength(json.length);
+        response.getOutputStream().write(json);
     }
 }
@@ -0,0 +1,245 @@
+package org.example.controller;
+
+import com.google.gson.Gson;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.example.eventlog.MoveEventLog;
+import org.example.service.GameMetrics;
+import org.example.service.OverallStatsKeeper;
+import org.example.service.PopulationModel;
+import org.example.service.RPSResolver;
+import org.example.results.GameResultWriter;
+import org.example.service.RPSResolver.Move;
+import org.example.session.SessionExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.server.support.HttpSessionHandshakeInterceptor;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Game over a WebSocket. Each connection plays against one resolver, taken from the HTTP session
+ * the connection was opened with, so a game can move between {@code /play} and the socket.
+ * <p>
+ * A text frame of move letters ({@code R}, {@code P}, {@code S}) is answered with two letters per
+ * move: the AI move and the result for the player ({@code V}ictory, {@code D}efeat or {@code T}ie).
+ * {@code stop} is answered with the same JSON as {@code PUT /stop}, errors with {@code !} and a message.
+ * The resolver is written back to the HTTP session on stop, on close and every
+ * {@code rps.ws.persist-interval-ms}, not after every move.
+ * <p>
+ * Frames, saves and {@code /play} requests of one HTTP session all run on its {@link SessionExecutor}
+ * mailbox, one at a time and in arrival order.
+ */
+@Component
+public class GameSocketHandler extends TextWebSocketHandler {
+    private static final Log LOG = LogFactory.getLog(GameSocketHandler.class);
+
+    /** Attribute under which the session scope keeps the {@link RPSResolver} bean. */
+    static final String RESOLVER_ATTRIBUTE = "scopedTarget.RPSResolver";
+    static final String STOP = "stop";
+
+    private final SessionRepository<? extends Session> sessions;
+    private final OverallStatsKeeper statsKeeper;
+    private final GameMetrics metrics;
+    private final PopulationModel population;
+    private final MoveEventLog events;
+    private final SessionExecutor sessionExecutor;
+    private final GameResultWriter results;
+    private final int markovOrder;
+    private final Map<String, Game> games = new ConcurrentHashMap<>();
+    private final Gson gson = new Gson();
+
+    @Autowired
+    public GameSocketHandler(SessionRepository<? extends Session> sessions, OverallStatsKeeper statsKeeper,
+                             GameMetrics metrics, PopulationModel population, MoveEventLog events,
+                             SessionExecutor sessionExecutor, @Nullable GameResultWriter results,
+                             @Value("${rps.markov.order:2}") int markovOrder) {
+        this.sessions = sessions;
+        this.statsKeeper = statsKeeper;
+        this.metrics = metrics;
+        this.population = population;
+        this.events = events;
+        this.sessionExecutor = sessionExecutor;
+        this.results = results;
+        this.markovOrder = markovOrder;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession socket) {
+        String httpSessionId = (String) socket.getAttributes().get(HttpSessionHandshakeInterceptor.HTTP_SESSION_ID_ATTR_NAME);
+        games.put(socket.getId(), open(httpSessionId, socket.getId()));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession socket, TextMessage message) {
+        Game game = games.get(socket.getId());
+        String payload = message.getPayload();
+        // replies are sent from the mailbox too, so they go out in the order of the frames
+        sessionExecutor.submit(game.key, () -> {
+            String reply;
+            try {
+                reply = STOP.equals(payload) ? stop(game) : play(game, payload);
+            } catch (Exception ex) {
+                LOG.error("Playing over the socket failed. Your moves: " + payload, ex);
+                reply = "!" + ex.getMessage();
+            }
+            try {
+                socket.sendMessage(new TextMessage(reply));
+            } catch (IOException ex) {
+                LOG.error("Failed to reply over the socket", ex);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession socket, CloseStatus status) {
+        Game game = games.remove(socket.getId());
+        if (game != null) {
+            persistLater(game);
+        }
+    }
+
+    /**
+     * Writes the resolvers of open games back to their HTTP sessions if they were played since the last time.
+     */
+    @Scheduled(fixedDelayString = "${rps.ws.persist-interval-ms:30000}")
+    public void persistOpenGames() {
+        for (Game game : games.values()) {
+            persistLater(game);
+        }
+    }
+
+    int openGames() {
+        return games.size();
+    }
+
+    /**
+     * @param socketId keys the mailbox of a socket without an HTTP session
+     */
+    Game open(String httpSessionId, String socketId) {
+        RPSResolver resolver = null;
+        Session session = httpSessionId == null ? null : sessions.findById(httpSessionId);
+        if (session != null) {
+            resolver = session.getAttribute(RESOLVER_ATTRIBUTE);
+        }
+        if (resolver == null) {
+            resolver = new RPSResolver(markovOrder, population, events);
+        }
+        return new Game(httpSessionId, httpSessionId != null ? httpSessionId : "ws-" + socketId, resolver);
+    }
+
+    String play(Game game, String moveLetters) {
+        if (moveLetters.isEmpty() || moveLetters.length() > RPSResolver.MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Expected 1 to " + RPSResolver.MAX_BATCH_SIZE + " moves: " + moveLetters.length());
+        }
+        for (int i = 0; i < moveLetters.length(); i++) {
+            move(moveLetters.charAt(i));
+        }
+        char[] reply = new char[moveLetters.length() * 2];
+        RPSResolver.Response res = null;
+        for (int i = 0; i < moveLetters.length(); i++) {
+            long start = System.nanoTime();
+            res = game.resolver.play(move(moveLetters.charAt(i)));
+            metrics.recordPlay(res, System.nanoTime() - start);
+            reply[2 * i] = res.getAiMove().charAt(0);
+            reply[2 * i + 1] = res.getResult().name().charAt(0);
+        }
+        if (game.httpSessionId != null) {
+            statsKeeper.count(game.httpSessionId, res);
+        }
+        game.dirty = true;
+        return new String(reply);
+    }
+
+    String stop(Game game) {
+        long start = System.nanoTime();
+        RPSResolver.DetailedStats ds = game.resolver.stop();
+        long placeStart = System.nanoTime();
+        if (game.httpSessionId != null) {
+            ds.setBetterThanOtherUsersPercentage(statsKeeper.getUserPlace(game.httpSessionId));
+        }
+        long end = System.nanoTime();
+        metrics.recordUserPlace(end - placeStart);
+        metrics.recordStop(end - start);
+        if (results != null) {
+            results.record(game.httpSessionId, ds);
+        }
+        game.dirty = true;
+        persistQuietly(game);
+        return gson.toJson(ds);
+    }
+
+    void persist(Game game) {
+        if (game.dirty && game.httpSessionId != null) {
+            save(sessions, game.httpSessionId, game.resolver);
+        }
+        game.dirty = false;
+    }
+
+    private void persistLater(Game game) {
+        sessionExecutor.submit(game.key, () -> {
+            persistQuietly(game);
+            return null;
+        });
+    }
+
+    private void persistQuietly(Game game) {
+        try {
+            persist(game);
+        } catch (RuntimeException ex) {
+            LOG.error("Failed to save the game of session " + game.httpSessionId, ex);
+        }
+    }
+
+    private static <S extends Session> void save(SessionRepository<S> sessions, String id, RPSResolver resolver) {
+        S session = sessions.findById(id);
+        if (session != null) {
+            session.setAttribute(RESOLVER_ATTRIBUTE, resolver);
+            sessions.save(session);
+        }
+    }
+
+    private static Move move(char letter) {
+        switch (letter) {
+            case 'R':
+            case 'r':
+                return Move.ROCK;
+            case 'P':
+            case 'p':
+                return Move.PAPER;
+            case 'S':
+            case 's':
+                return Move.SCISSORS;
+            default:
+                throw new IllegalArgumentException("Unknown move " + letter);
+        }
+    }
+
+    /**
+     * Only touched from the mailbox of its key.
+     */
+    static final class Game {
+        final String httpSessionId;
+        final String key;
+        final RPSResolver resolver;
+        boolean dirty;
+
+        Game(String httpSessionId, String key, RPSResolver resolver) {
+            this.httpSessionId = httpSessionId;
+            this.key = key;
+            this.resolver = resolver;
+        }
+    }
+}
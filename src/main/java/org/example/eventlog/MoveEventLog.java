@@ -0,0 +1,299 @@
+package org.example.eventlog;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only binary log of played moves and finished games. Request threads only claim a slot of
+ * a preallocated ring and fill in a few longs; one writer thread copies the events into a buffer
+ * and appends it to the current segment with a {@link FileChannel} whenever the ring runs dry or
+ * the buffer fills up. Segments are rotated by size and the oldest are deleted beyond a maximum.
+ * When the writer falls behind by a whole ring, events are dropped and counted instead of making
+ * requests wait.
+ * <p>
+ * A segment is {@link #MAGIC} and a version byte followed by big-endian records, see {@link #read}.
+ */
+@Component
+public class MoveEventLog {
+    private static final Log LOG = LogFactory.getLog(MoveEventLog.class);
+
+    public static final int MAGIC = 0x52505345; // "RPSE"
+    private static final int VERSION = 1;
+    static final byte MOVE = 1;
+    static final byte GAME_OVER = 2;
+    private static final int HEADER_BYTES = 5;
+    private static final int MAX_RECORD_BYTES = 29;
+    private static final int SLOT_LONGS = 4;
+    private static final String PREFIX = "moves-";
+    private static final String SUFFIX = ".log";
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    private static volatile MoveEventLog active;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int maxSegments;
+    private final int mask;
+    private final long[] slots;
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+
+    private volatile boolean running;
+    private Thread writer;
+    private FileChannel segment;
+    private long segmentSize;
+
+    /**
+     * @param ringSize events that can wait for the writer, rounded up to a power of two
+     */
+    @Autowired
+    public MoveEventLog(@Value("${rps.events.directory:events}") String directory,
+                        @Value("${rps.events.ring-size:65536}") int ringSize,
+                        @Value("${rps.events.segment-bytes:67108864}") long segmentBytes,
+                        @Value("${rps.events.max-segments:64}") int maxSegments) {
+        if (segmentBytes < HEADER_BYTES + MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("Segments must hold at least one event: " + segmentBytes);
+        }
+        this.directory = Paths.get(directory);
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        int capacity = Integer.highestOneBit(Math.max(2, ringSize) * 2 - 1);
+        this.mask = capacity - 1;
+        this.slots = new long[capacity * SLOT_LONGS];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    /**
+     * The log of the running application, used to reattach deserialized sessions.
+     */
+    public static MoveEventLog active() {
+        return active;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        running = true;
+        writer = new Thread(this::writeLoop, "move-event-log");
+        writer.setDaemon(true);
+        writer.start();
+        active = this;
+    }
+
+    /**
+     * Writes the events published so far and closes the current segment.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (active == this) {
+            active = null;
+        }
+        running = false;
+        if (writer != null) {
+            writer.join();
+        }
+    }
+
+    /**
+     * @param round   number of the move in its game, from 1
+     * @param result  {@code Decision} ordinal, from the player's side
+     */
+    public void move(long gameId, int round, int playerMove, int aiMove, int result) {
+        publish(MOVE | (playerMove | aiMove << 2 | result << 4) << 8 | (long) round << 32, gameId, 0);
+    }
+
+    public void gameOver(long gameId, int victories, int defeats, int ties) {
+        publish(GAME_OVER | (long) ties << 32, gameId, (long) victories << 32 | (defeats & 0xFFFFFFFFL));
+    }
+
+    /**
+     * @return events that found the ring full
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    private void publish(long header, long gameId, long payload) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed.get() > mask || !running) {
+                dropped.increment();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+        int slot = (int) sequence & mask;
+        int base = slot * SLOT_LONGS;
+        slots[base] = header;
+        slots[base + 1] = gameId;
+        slots[base + 2] = System.currentTimeMillis();
+        slots[base + 3] = payload;
+        published.lazySet(slot, sequence); // releases the slot contents to the writer
+    }
+
+    private void writeLoop() {
+        long next = consumed.get();
+        try {
+            while (true) {
+                int slot = (int) next & mask;
+                if (published.get(slot) == next) {
+                    encode(slot);
+                    consumed.lazySet(++next);
+                    if (buffer.position() + MAX_RECORD_BYTES > Math.min(buffer.capacity(), segmentRoom())) {
+                        flushBuffer();
+                    }
+                } else if (!running && next == claimed.get()) {
+                    break;
+                } else {
+                    flushBuffer();
+                    if (running) {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    } else {
+                        Thread.yield(); // a claimed event is still being filled in
+                    }
+                }
+            }
+            flushBuffer();
+            if (segment != null) {
+                segment.force(false);
+                segment.close();
+            }
+        } catch (IOException ex) {
+            LOG.error("Move event log stopped, events are no longer recorded", ex);
+            running = false;
+        }
+    }
+
+    private void encode(int slot) {
+        int base = slot * SLOT_LONGS;
+        long header = slots[base];
+        byte type = (byte) header;
+        buffer.put(type).putLong(slots[base + 1]).putLong(slots[base + 2]);
+        if (type == MOVE) {
+            buffer.putInt((int) (header >>> 32)).put((byte) (header >>> 8));
+        } else {
+            long payload = slots[base + 3];
+            buffer.putInt((int) (payload >>> 32)).putInt((int) payload).putInt((int) (header >>> 32));
+        }
+    }
+
+    // segments are cut between records, so a buffer must fit into what is left of one
+    private long segmentRoom() {
+        return segment == null ? segmentBytes - HEADER_BYTES : segmentBytes - segmentSize;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        if (segment == null || segmentSize + buffer.remaining() > segmentBytes) {
+            rotate();
+        }
+        while (buffer.hasRemaining()) {
+            segmentSize += segment.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void rotate() throws IOException {
+        if (segment != null) {
+            segment.force(false);
+            segment.close();
+        }
+        // sequence numbers start over with every run, the start time keeps names in write order
+        Path path = directory.resolve(String.format("%s%013d-%020d%s", PREFIX, System.currentTimeMillis(), consumed.get(), SUFFIX));
+        segment = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).put((byte) VERSION);
+        header.flip();
+        while (header.hasRemaining()) {
+            segment.write(header);
+        }
+        segmentSize = HEADER_BYTES;
+        deleteOldSegments();
+    }
+
+    private void deleteOldSegments() throws IOException {
+        List<Path> segments = segments(directory);
+        for (int i = 0; i < segments.size() - maxSegments; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    /**
+     * @return segment files in the order they were written
+     */
+    public static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            files.forEach(segments::add);
+        }
+        Collections.sort(segments);
+        return Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * Receives the records of a segment.
+     */
+    public interface Visitor {
+        void move(long gameId, long timeMillis, int round, int playerMove, int aiMove, int result);
+
+        void gameOver(long gameId, long timeMillis, int victories, int defeats, int ties);
+    }
+
+    /**
+     * Reads a segment, mapped rather than copied. A record cut short by a crash ends it.
+     */
+    public static void read(Path segment, Visitor visitor) throws IOException {
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC || in.get() != VERSION) {
+            throw new IOException("Not a move event segment: " + segment);
+        }
+        while (in.remaining() >= 17) {
+            byte type = in.get();
+            long gameId = in.getLong();
+            long timeMillis = in.getLong();
+            if (type == MOVE && in.remaining() >= 5) {
+                int round = in.getInt();
+                int moves = in.get();
+                visitor.move(gameId, timeMillis, round, moves & 3, moves >>> 2 & 3, moves >>> 4 & 3);
+            } else if (type == GAME_OVER && in.remaining() >= 12) {
+                visitor.gameOver(gameId, timeMillis, in.getInt(), in.getInt(), in.getInt());
+            } else if (type != MOVE && type != GAME_OVER) {
+                throw new IOException("Unknown event type " + type + " in " + segment);
+            } else {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package org.example.results;
+
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.example.service.RPSResolver;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stores the summaries of finished games in the {@code GAME_RESULT} table behind the requests. Stopping
+ * a game only puts a row into a bounded queue; one writer thread takes up to {@code batchSize} rows at a
+ * time and inserts them with one batched statement in one transaction. When the database falls behind
+ * and the queue is full, the {@link OverflowPolicy} decides whether a row is dropped or waits for room.
+ * Rows that wait do so on an overflow thread of their own, never on the thread that stopped the game,
+ * which is usually a session worker shared with other sessions.
+ * <p>
+ * Rows of a batch that fails are dropped and counted, the writer carries on with the next batch.
+ */
+public class GameResultWriter implements DisposableBean {
+    private static final Log LOG = LogFactory.getLog(GameResultWriter.class);
+
+    static final String INSERT_RESULT = "INSERT INTO GAME_RESULT (SESSION_ID, FINISHED_AT, VICTORIES, DEFEATS, " +
+            "TIES, FAVOURITE_MOVE, WIN_RATE, BETTER_THAN_OTHERS, HISTORY) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * What happens to a row that finds the queue full.
+     */
+    public enum OverflowPolicy {
+        /** Drops the row at once. */
+        DROP,
+        /** Hands the row to the overflow thread, which waits up to the block timeout for room, then drops it. */
+        BLOCK
+    }
+
+    private final JdbcOperations jdbc;
+    private final TransactionOperations transactions;
+    private final BlockingQueue<Object[]> queue;
+    private final int batchSize;
+    private final OverflowPolicy policy;
+    private final long blockNanos;
+    private final ThreadPoolExecutor overflow; // only with BLOCK
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    private volatile boolean running;
+    private Thread writer;
+    private Timer flushTimer;
+
+    /**
+     * @param capacity     rows that can wait for the writer, and with {@link OverflowPolicy#BLOCK} as many
+     *                     again for room in the queue
+     * @param blockTimeout how long a row waits for room with {@link OverflowPolicy#BLOCK}
+     */
+    public GameResultWriter(JdbcOperations jdbc, TransactionOperations transactions, int capacity, int batchSize,
+                            OverflowPolicy policy, Duration blockTimeout) {
+        this.jdbc = jdbc;
+        this.transactions = transactions;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.policy = policy;
+        this.blockNanos = blockTimeout.toNanos();
+        this.overflow = policy == OverflowPolicy.BLOCK ? new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity), r -> {
+                    Thread thread = new Thread(r, "game-result-overflow");
+                    thread.setDaemon(true);
+                    return thread;
+                }) : null;
+    }
+
+    public void setFlushTimer(Timer flushTimer) {
+        this.flushTimer = flushTimer;
+    }
+
+    public void start() {
+        running = true;
+        writer = new Thread(this::writeLoop, "game-result-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues the summary of a finished game, without waiting.
+     *
+     * @param sessionId HTTP session that played the game, null if there was none
+     * @return false if the row was dropped at once because the queue was full
+     */
+    public boolean record(String sessionId, RPSResolver.DetailedStats stats) {
+        Object[] row = {sessionId, System.currentTimeMillis(), stats.getVictories(), stats.getDefeats(),
+                stats.getTies(), stats.getFavouriteMove(), stats.getWinRate(), stats.getBetterThanOtherUsersPercentage(),
+                stats.getHistory()};
+        if (queue.offer(row)) {
+            return true;
+        }
+        if (overflow != null) {
+            try {
+                overflow.execute(() -> offerBlocking(row));
+                return true;
+            } catch (RejectedExecutionException ex) {
+                // the overflow is full as well
+            }
+        }
+        dropped.increment();
+        return false;
+    }
+
+    private void offerBlocking(Object[] row) {
+        try {
+            if (queue.offer(row, blockNanos, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        dropped.increment();
+    }
+
+    /**
+     * @return rows waiting for the writer or for room in its queue
+     */
+    public int pending() {
+        return queue.size() + (overflow != null ? overflow.getQueue().size() : 0);
+    }
+
+    /**
+     * @return rows that found the queue full or failed to be written
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public long written() {
+        return written.sum();
+    }
+
+    /**
+     * Writes the rows queued so far and stops the writer.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        if (overflow != null) {
+            overflow.shutdown();
+            overflow.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        running = false;
+        if (writer != null) {
+            writer.join();
+        }
+    }
+
+    private void writeLoop() {
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Object[] first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException ex) {
+                LOG.warn(queue.size() + " game results were not written");
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<Object[]> batch) {
+        long start = System.nanoTime();
+        try {
+            transactions.executeWithoutResult(status -> jdbc.batchUpdate(INSERT_RESULT, batch));
+            written.add(batch.size());
+        } catch (RuntimeException ex) {
+            dropped.add(batch.size());
+            LOG.error("Failed to write " + batch.size() + " game results", ex);
+        } finally {
+            if (flushTimer != null) {
+                flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
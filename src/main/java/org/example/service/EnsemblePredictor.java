@@ -0,0 +1,166 @@
+package org.example.service;
+
+import org.example.service.RPSResolver.Move;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.util.Arrays;
+
+/**
+ * Runs all members on every round and follows whichever has been right lately. Every prediction is
+ * also tried rotated once and twice, as if the player expected our counter move and countered it,
+ * and each of these variants keeps an exponentially decayed score of the rounds its counter move
+ * would have won (+1) or lost (-1). The best variant is followed, so a member that has been
+ * beaten lately gives way to another member or to its own rotation. The own prediction of an
+ * optional preferred member gets {@link #PREFERRED_BIAS} on top of its score, so a session's chain,
+ * which starts out with the population prior, isn't overruled by a member's lucky first hits.
+ * <p>
+ * Scores are kept across games and serialized with the members' own state.
+ */
+class EnsemblePredictor implements Predictor {
+    static final double DECAY = 0.9;
+    static final double PREFERRED_BIAS = 1.5;
+    private static final Move[] MOVES = Move.values();
+    private static final int LENGTH = MOVES.length;
+    // ROTATIONS[r][p]: p rotated r times, each rotation is the move that beats the previous one
+    private static final int[][] ROTATIONS = new int[LENGTH][LENGTH];
+    // OUTCOMES[p][m]: score of playing against p when the player plays m
+    private static final int[][] OUTCOMES = new int[LENGTH][LENGTH];
+
+    static {
+        for (Move move : MOVES) {
+            Move rotated = move;
+            for (int r = 0; r < LENGTH; r++) {
+                ROTATIONS[r][move.ordinal()] = rotated.ordinal();
+                rotated = rotated.losesTo;
+            }
+            OUTCOMES[move.ordinal()][move.ordinal()] = 1;
+            OUTCOMES[move.ordinal()][move.losesTo.losesTo.ordinal()] = -1;
+        }
+    }
+
+    private final Predictor[] members;
+    private final int[] predictions;
+    private final double[] scores;
+    private final int preferred; // variant of the preferred member's own prediction, -1 for none
+
+    EnsemblePredictor(Predictor... members) {
+        this(-1, members);
+    }
+
+    /**
+     * @param preferred index of the member whose own prediction is preferred, -1 for none
+     */
+    EnsemblePredictor(int preferred, Predictor... members) {
+        if (preferred < -1 || preferred >= members.length) {
+            throw new IllegalArgumentException("No member " + preferred + " among " + members.length);
+        }
+        this.members = members;
+        this.preferred = preferred < 0 ? -1 : preferred * LENGTH;
+        this.predictions = new int[members.length];
+        this.scores = new double[members.length * LENGTH];
+        Arrays.fill(predictions, -1);
+    }
+
+    int size() {
+        return members.length;
+    }
+
+    /**
+     * @return decayed score of a member's prediction rotated {@code rotation} times
+     */
+    double score(int member, int rotation) {
+        return scores[member * LENGTH + rotation];
+    }
+
+    @Override
+    public int predict(MoveHistory moves, int tieBreak) {
+        int best = -1;
+        for (int i = 0; i < members.length; i++) {
+            int prediction = members[i].predict(moves, tieBreak);
+            predictions[i] = prediction;
+            if (prediction >= 0) {
+                for (int v = i * LENGTH; v < (i + 1) * LENGTH; v++) {
+                    if (best < 0 || biased(v) > biased(best)) {
+                        best = v;
+                    }
+                }
+            }
+        }
+        return best < 0 ? -1 : ROTATIONS[best % LENGTH][predictions[best / LENGTH]];
+    }
+
+    private double biased(int variant) {
+        return variant == preferred ? scores[variant] + PREFERRED_BIAS : scores[variant];
+    }
+
+    @Override
+    public void update(MoveHistory moves, int aiMove) {
+        int move = moves.last(0).ordinal();
+        for (int i = 0; i < members.length; i++) {
+            int prediction = predictions[i];
+            for (int r = 0; r < LENGTH; r++) {
+                int v = i * LENGTH + r;
+                scores[v] *= DECAY;
+                if (prediction >= 0) {
+                    scores[v] += OUTCOMES[ROTATIONS[r][prediction]][move];
+                }
+            }
+            predictions[i] = -1;
+            members[i].update(moves, aiMove);
+        }
+    }
+
+    @Override
+    public void reset() {
+        for (Predictor member : members) {
+            member.reset();
+        }
+        Arrays.fill(predictions, -1);
+    }
+
+    /**
+     * Resets all members and forgets the scores.
+     */
+    void clear() {
+        reset();
+        Arrays.fill(scores, 0.0);
+    }
+
+    @Override
+    public void rebuild(MoveHistory moves) {
+        for (Predictor member : members) {
+            member.rebuild(moves);
+        }
+    }
+
+    /**
+     * Writes the number of scores, the scores as floats and the state of every member.
+     */
+    @Override
+    public void writeTo(DataOutput out) throws IOException {
+        VarInts.write(out, scores.length);
+        for (double score : scores) {
+            out.writeFloat((float) score);
+        }
+        for (Predictor member : members) {
+            member.writeTo(out);
+        }
+    }
+
+    @Override
+    public void readFrom(DataInput in) throws IOException {
+        int count = VarInts.read(in);
+        if (count != scores.length) {
+            throw new InvalidObjectException("Expected " + scores.length + " ensemble scores: " + count);
+        }
+        for (int v = 0; v < count; v++) {
+            scores[v] = in.readFloat();
+        }
+        for (Predictor member : members) {
+            member.readFrom(in);
+        }
+    }
+}
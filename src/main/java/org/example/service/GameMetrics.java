@@ -0,0 +1,80 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for the game hot path. Callers pass durations measured with System.nanoTime,
+ * so recording doesn't allocate.
+ */
+@Component
+public class GameMetrics {
+    private final Timer playTimer;
+    private final Timer batchTimer;
+    private final Timer stopTimer;
+    private final Timer userPlaceTimer;
+    private final Counter[] predictorRounds = new Counter[RPSResolver.Decision.values().length];
+
+    @Autowired
+    public GameMetrics(MeterRegistry registry, OverallStatsKeeper statsKeeper) {
+        playTimer = timer(registry, "rps.play", "Time to resolve one move");
+        batchTimer = timer(registry, "rps.play.batch", "Time to resolve a batch of moves");
+        stopTimer = timer(registry, "rps.stop", "Time to finish a game");
+        userPlaceTimer = timer(registry, "rps.user.place", "Time to rank a user against all sessions");
+        for (RPSResolver.Decision decision : RPSResolver.Decision.values()) {
+            predictorRounds[decision.ordinal()] = Counter.builder("rps.predictor.rounds")
+                    .description("Rounds by result for the AI")
+                    .tag("result", predictorResult(decision))
+                    .register(registry);
+        }
+        Gauge.builder("rps.sessions.tracked", statsKeeper, OverallStatsKeeper::size)
+                .description("Sessions known to the overall stats keeper")
+                .register(registry);
+    }
+
+    private static Timer timer(MeterRegistry registry, String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static String predictorResult(RPSResolver.Decision decision) {
+        switch (decision) {
+            case DEFEAT:
+                return "win";
+            case VICTORY:
+                return "loss";
+            default:
+                return "tie";
+        }
+    }
+
+    public void recordPlay(RPSResolver.Response res, long nanos) {
+        playTimer.record(nanos, TimeUnit.NANOSECONDS);
+        predictorRounds[res.result.ordinal()].increment();
+    }
+
+    public void recordBatch(RPSResolver.BatchResponse res, long nanos) {
+        batchTimer.record(nanos, TimeUnit.NANOSECONDS);
+        List<RPSResolver.Response> rounds = res.rounds;
+        for (int i = 0; i < rounds.size(); i++) {
+            predictorRounds[rounds.get(i).result.ordinal()].increment();
+        }
+    }
+
+    public void recordStop(long nanos) {
+        stopTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordUserPlace(long nanos) {
+        userPlaceTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.service;
+
+import com.google.gson.Gson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builds the population stats in the background and publishes them as pre-encoded JSON, so serving
+ * them costs the same however many sessions there are. Readers get the bytes of the last snapshot,
+ * which are never modified after the volatile write that publishes them.
+ */
+@Component
+public class GlobalStatsPublisher {
+    static final int HISTOGRAM_BINS = 20;
+
+    private final OverallStatsKeeper statsKeeper;
+    private final PopulationModel population;
+    private final int topSize;
+    private final Clock clock;
+    private final Gson gson = new Gson();
+
+    private volatile byte[] json;
+
+    @Autowired
+    public GlobalStatsPublisher(OverallStatsKeeper statsKeeper, PopulationModel population,
+                                @Value("${rps.global-stats.top:10}") int topSize) {
+        this(statsKeeper, population, topSize, Clock.systemUTC());
+    }
+
+    GlobalStatsPublisher(OverallStatsKeeper statsKeeper, PopulationModel population, int topSize, Clock clock) {
+        this.statsKeeper = statsKeeper;
+        this.population = population;
+        this.topSize = topSize;
+        this.clock = clock;
+        refresh();
+    }
+
+    /**
+     * @return UTF-8 JSON of the last snapshot, must not be modified
+     */
+    public byte[] json() {
+        return json;
+    }
+
+    @Scheduled(fixedDelayString = "${rps.global-stats.interval-ms:5000}")
+    public void refresh() {
+        json = gson.toJson(snapshot()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    GlobalStats snapshot() {
+        int[] counts = statsKeeper.winRateCounts();
+        GlobalStats stats = new GlobalStats();
+        stats.generatedAt = clock.millis();
+
+        // win rates are bucket lower bounds, the last bucket is a win rate of 1
+        int users = 0;
+        stats.winRateHistogram = new int[HISTOGRAM_BINS];
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            users += counts[bucket];
+            stats.winRateHistogram[Math.min(HISTOGRAM_BINS - 1, (int) ((long) bucket * HISTOGRAM_BINS / WinRateIndex.RESOLUTION))] += counts[bucket];
+        }
+        stats.users = users;
+        stats.topWinRates = new double[Math.min(topSize, users)];
+        int top = 0;
+        for (int bucket = counts.length - 1; bucket >= 0 && top < stats.topWinRates.length; bucket--) {
+            for (int i = 0; i < counts[bucket] && top < stats.topWinRates.length; i++) {
+                stats.topWinRates[top++] = bucket / (double) WinRateIndex.RESOLUTION;
+            }
+        }
+
+        long moves = 0;
+        for (RPSResolver.Move move : RPSResolver.Move.values()) {
+            moves += population.moveCount(move.ordinal());
+        }
+        stats.moveFrequencies = new LinkedHashMap<>();
+        for (RPSResolver.Move move : RPSResolver.Move.values()) {
+            stats.moveFrequencies.put(move.toString(), moves == 0 ? 0.0 : population.moveCount(move.ordinal()) / (double) moves);
+        }
+        stats.games = population.games();
+        stats.averageGameLength = stats.games == 0 ? 0.0 : population.gameRounds() / (double) stats.games;
+        return stats;
+    }
+
+    /**
+     * Population stats at one point in time. The histogram splits win rates into {@link #HISTOGRAM_BINS}
+     * bins of equal width, the last one includes a win rate of 1.
+     */
+    static class GlobalStats {
+        long generatedAt;
+        int users;
+        double[] topWinRates;
+        int[] winRateHistogram;
+        Map<String, Double> moveFrequencies;
+        long games;
+        double averageGameLength;
+    }
+}
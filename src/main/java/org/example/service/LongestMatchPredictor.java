@@ -0,0 +1,165 @@
+package org.example.service;
+
+import java.util.Arrays;
+
+/**
+ * Predicts the move that followed the longest earlier occurrence of the end of the history, which
+ * catches cycles and other patterns longer than the Markov order. A suffix automaton of the last
+ * moves finds that occurrence in amortized O(1) per move: the suffix link of the state of the
+ * whole history is the longest suffix that also ended earlier.
+ * <p>
+ * The automaton covers at most {@link #WINDOW} moves and is rebuilt from the newer half of them
+ * when full. That bounds a session's automaton to {@code 2 * WINDOW} states of 24 bytes, 192 KB, and
+ * the rebuild after every deserialization to half a window. A reset between games shrinks it back
+ * to its initial size. It is derived from the {@link MoveHistory} and not serialized.
+ */
+class LongestMatchPredictor implements Predictor {
+    static final int WINDOW = 1 << 12;
+    static final int INITIAL_CAPACITY = 64;
+    private static final int LENGTH = RPSResolver.Move.values().length;
+
+    private int[] next;  // state * 3 + move -> next state + 1, 0 for none
+    private int[] link;  // suffix link, -1 for the root
+    private int[] len;   // longest string of the state
+    private int[] end;   // absolute number of the last move of an earlier occurrence, see update
+    private int states;
+    private int last;
+    private int base;    // absolute number of the first move in the automaton
+    private int size;    // absolute number of moves seen
+
+    LongestMatchPredictor() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @return states the arrays have room for
+     */
+    int capacity() {
+        return link.length;
+    }
+
+    /**
+     * @return length of the longest suffix of the history that also ended earlier
+     */
+    int matchLength() {
+        return last == 0 ? 0 : len[link[last]];
+    }
+
+    /**
+     * @return ordinal of the move that followed the longest earlier match, -1 if there is none
+     */
+    @Override
+    public int predict(MoveHistory history, int tieBreak) {
+        if (matchLength() == 0) {
+            return -1;
+        }
+        return history.get(end[link[last]] + 1).ordinal();
+    }
+
+    /**
+     * Adds the last move of the history, which must have grown by one since the previous call.
+     */
+    @Override
+    public void update(MoveHistory history, int aiMove) {
+        if (last != 0) {
+            // the previous end is an occurrence of the longest match now followed by a known move,
+            // so predictions from that match use its most recent continuation
+            end[link[last]] = size - 1;
+        }
+        if (size - base == WINDOW) {
+            rebuild(history, WINDOW / 2);
+        } else {
+            extend(history.last(0).ordinal());
+        }
+    }
+
+    /**
+     * Indexes the last moves of a history, up to half a window.
+     */
+    @Override
+    public void rebuild(MoveHistory history) {
+        rebuild(history, WINDOW / 2);
+    }
+
+    /**
+     * Forgets the game and gives back the memory a long game took.
+     */
+    @Override
+    public void reset() {
+        if (link.length > INITIAL_CAPACITY) {
+            next = link = len = end = null;
+            states = 0;
+            allocate(INITIAL_CAPACITY);
+        }
+        clear();
+    }
+
+    private void clear() {
+        Arrays.fill(next, 0, states * LENGTH, 0);
+        states = 1;
+        last = 0;
+        link[0] = -1;
+        len[0] = 0;
+        base = 0;
+        size = 0;
+    }
+
+    private void rebuild(MoveHistory history, int moves) {
+        clear();
+        size = Math.max(0, history.size() - Math.min(moves, history.retained()));
+        base = size;
+        for (int i = base; i < history.size(); i++) {
+            extend(history.get(i).ordinal());
+        }
+    }
+
+    private void extend(int move) {
+        if (states + 2 > link.length) {
+            allocate(link.length * 2);
+        }
+        int cur = newState(len[last] + 1, size);
+        int p = last;
+        while (p != -1 && next[p * LENGTH + move] == 0) {
+            next[p * LENGTH + move] = cur + 1;
+            p = link[p];
+        }
+        if (p == -1) {
+            link[cur] = 0;
+        } else {
+            int q = next[p * LENGTH + move] - 1;
+            if (len[p] + 1 == len[q]) {
+                link[cur] = q;
+            } else {
+                int clone = newState(len[p] + 1, end[q]);
+                System.arraycopy(next, q * LENGTH, next, clone * LENGTH, LENGTH);
+                link[clone] = link[q];
+                while (p != -1 && next[p * LENGTH + move] == q + 1) {
+                    next[p * LENGTH + move] = clone + 1;
+                    p = link[p];
+                }
+                link[q] = clone;
+                link[cur] = clone;
+            }
+        }
+        last = cur;
+        ++size;
+    }
+
+    private int newState(int length, int endPosition) {
+        int state = states++;
+        len[state] = length;
+        end[state] = endPosition;
+        return state;
+    }
+
+    private void allocate(int capacity) {
+        next = next == null ? new int[capacity * LENGTH] : Arrays.copyOf(next, capacity * LENGTH);
+        link = link == null ? new int[capacity] : Arrays.copyOf(link, capacity);
+        len = len == null ? new int[capacity] : Arrays.copyOf(len, capacity);
+        end = end == null ? new int[capacity] : Arrays.copyOf(end, capacity);
+        if (states == 0) {
+            states = 1;
+            link[0] = -1;
+        }
+    }
+}
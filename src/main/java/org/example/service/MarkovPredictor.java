@@ -0,0 +1,186 @@
+package org.example.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.util.Arrays;
+
+/**
+ * Order-N Markov chain over the player's moves. All counters live in one flat table indexed by
+ * {@code context * 3 + move}, where the context is a rolling base-3 hash of the last N moves,
+ * so an update or a prediction costs the same for every order.
+ */
+class MarkovPredictor {
+    static final int MIN_ORDER = 1;
+    static final int MAX_ORDER = 6;
+    static final int DEFAULT_ORDER = 2;
+    private static final int LENGTH = RPSResolver.Move.values().length;
+
+    private final int order;
+    private final int contexts;
+    private final int[] counts;
+    private int context;
+    private int known; // moves of the current context seen so far, up to order
+
+    MarkovPredictor(int order) {
+        this.order = order;
+        this.counts = new int[tableSize(order)];
+        this.contexts = counts.length / LENGTH;
+    }
+
+    /**
+     * @return number of counters of a table for the given order
+     */
+    static int tableSize(int order) {
+        if (order < MIN_ORDER || order > MAX_ORDER) {
+            throw new IllegalArgumentException("Markov order must be between " + MIN_ORDER + " and " + MAX_ORDER + ": " + order);
+        }
+        int size = LENGTH;
+        for (int i = 0; i < order; i++) {
+            size *= LENGTH;
+        }
+        return size;
+    }
+
+    int order() {
+        return order;
+    }
+
+    /**
+     * @param tieBreak ordinal preferred when several moves are equally likely
+     * @return ordinal of the player's most likely next move, -1 until the context is complete
+     */
+    int predict(int tieBreak) {
+        return predict(tieBreak, null);
+    }
+
+    /**
+     * @param prior population counts added as {@link PopulationModel#PRIOR_STRENGTH} pseudo-moves, may be null
+     */
+    int predict(int tieBreak, PopulationModel prior) {
+        if (known < order) {
+            return -1;
+        }
+        int row = context * LENGTH;
+        if (prior == null || prior.order() != order) {
+            int best = tieBreak;
+            for (int j = 0; j < LENGTH; j++) {
+                if (counts[row + j] > counts[row + best]) {
+                    best = j;
+                }
+            }
+            return best;
+        }
+        long priorTotal = 0;
+        for (int j = 0; j < LENGTH; j++) {
+            priorTotal += prior.count(row + j);
+        }
+        double priorScale = priorTotal == 0 ? 0.0 : PopulationModel.PRIOR_STRENGTH / priorTotal;
+        int best = tieBreak;
+        double bestScore = counts[row + best] + priorScale * prior.count(row + best);
+        for (int j = 0; j < LENGTH; j++) {
+            double score = counts[row + j] + priorScale * prior.count(row + j);
+            if (score > bestScore) {
+                best = j;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    void update(int move) {
+        update(move, null);
+    }
+
+    /**
+     * @param population model that learns the same transition, may be null
+     */
+    void update(int move, PopulationModel population) {
+        if (known == order) {
+            int index = context * LENGTH + move;
+            ++counts[index];
+            if (population != null && population.order() == order) {
+                population.record(index);
+            }
+        } else {
+            ++known;
+        }
+        context = (context * LENGTH + move) % contexts;
+    }
+
+    /**
+     * Forgets the current context, learned counts are kept.
+     */
+    void resetContext() {
+        context = 0;
+        known = 0;
+    }
+
+    void clear() {
+        Arrays.fill(counts, 0);
+        resetContext();
+    }
+
+    /**
+     * Restores the context from the last moves of a deserialized history.
+     */
+    void rebuildContext(MoveHistory history) {
+        resetContext();
+        for (int k = Math.min(order, history.size()) - 1; k >= 0; k--) {
+            context = (context * LENGTH + history.last(k).ordinal()) % contexts;
+            ++known;
+        }
+    }
+
+    /**
+     * Writes the order followed by the non-zero counters as (index gap, count) varint pairs.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        VarInts.write(out, order);
+        int nonZero = 0;
+        for (int count : counts) {
+            if (count != 0) {
+                ++nonZero;
+            }
+        }
+        VarInts.write(out, nonZero);
+        int previous = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                VarInts.write(out, i - previous);
+                VarInts.write(out, counts[i]);
+                previous = i;
+            }
+        }
+    }
+
+    static MarkovPredictor readFrom(DataInput in) throws IOException {
+        int order = VarInts.read(in);
+        if (order < MIN_ORDER || order > MAX_ORDER) {
+            throw new InvalidObjectException("Unsupported Markov order " + order);
+        }
+        MarkovPredictor predictor = new MarkovPredictor(order);
+        int nonZero = VarInts.read(in);
+        int index = 0;
+        for (int i = 0; i < nonZero; i++) {
+            index += VarInts.read(in);
+            if (index >= predictor.counts.length) {
+                throw new InvalidObjectException("Markov counter out of range " + index);
+            }
+            predictor.counts[index] = VarInts.read(in);
+        }
+        return predictor;
+    }
+
+    /**
+     * Second order chain stored as {@code int[previous * 3 + last][move]} by earlier versions.
+     */
+    static MarkovPredictor fromSecondOrderRows(int[][] rows) {
+        MarkovPredictor predictor = new MarkovPredictor(2);
+        for (int row = 0; row < rows.length; row++) {
+            System.arraycopy(rows[row], 0, predictor.counts, row * LENGTH, LENGTH);
+        }
+        return predictor;
+    }
+}
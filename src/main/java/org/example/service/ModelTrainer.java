@@ -0,0 +1,275 @@
+package org.example.service;
+
+import org.example.eventlog.MoveEventLog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Counts the transitions of archived games for a {@link TransitionModel}, in parallel on a pool.
+ * <p>
+ * CSV files hold one game per line, moves as names or letters separated by commas or whitespace,
+ * e.g. {@code ROCK,PAPER,scissors} or {@code RPS RRP}; lines starting with {@code #} are skipped.
+ * They are cut at line ends into chunks that are mapped and parsed in parallel. Move event log
+ * segments ({@code .log}) are read in parallel by file; a game continued in the next segment starts
+ * over with an empty context there.
+ */
+public final class ModelTrainer {
+    static final long CHUNK_BYTES = 64 << 20;
+    private static final RPSResolver.Move[] MOVES = RPSResolver.Move.values();
+    private static final int LENGTH = MOVES.length;
+
+    private final int maxOrder;
+    private final long chunkBytes;
+
+    public ModelTrainer(int maxOrder) {
+        this(maxOrder, CHUNK_BYTES);
+    }
+
+    ModelTrainer(int maxOrder, long chunkBytes) {
+        MarkovPredictor.tableSize(maxOrder); // validates the order
+        this.maxOrder = maxOrder;
+        this.chunkBytes = chunkBytes;
+    }
+
+    public Counts train(List<Path> inputs, ExecutorService pool) throws IOException, InterruptedException {
+        List<Callable<Counts>> tasks = new ArrayList<>();
+        for (Path input : inputs) {
+            String name = input.getFileName().toString();
+            if (name.endsWith(".csv")) {
+                addCsvChunks(input, tasks);
+            } else if (name.endsWith(".log")) {
+                tasks.add(() -> readSegment(input));
+            } else {
+                throw new IllegalArgumentException("Expected a .csv or .log history file: " + input);
+            }
+        }
+        Counts total = new Counts(maxOrder);
+        try {
+            for (Future<Counts> counts : pool.invokeAll(tasks)) {
+                total.add(counts.get());
+            }
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IllegalStateException("Training failed", ex.getCause());
+        }
+        return total;
+    }
+
+    private void addCsvChunks(Path file, List<Callable<Counts>> tasks) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = 0;
+            while (start < size) {
+                long end = lineEnd(channel, Math.min(size, start + chunkBytes));
+                long from = start;
+                tasks.add(() -> readCsv(file, from, end));
+                start = end;
+            }
+        }
+    }
+
+    // position just after the first line end at or after position, or the file size
+    private static long lineEnd(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long size = channel.size();
+        while (position < size) {
+            buffer.clear();
+            int n = channel.read(buffer, position);
+            for (int i = 0; i < n; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += n;
+        }
+        return size;
+    }
+
+    Counts readCsv(Path file, long from, long to) throws IOException {
+        Counts counts = new Counts(maxOrder);
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        }
+        Context game = new Context();
+        boolean comment = false;
+        int token = -1;
+        for (int i = 0; i <= in.limit(); i++) {
+            byte b = i == in.limit() ? (byte) '\n' : in.get(i);
+            if (b == ',' || b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+                if (token >= 0 && !comment) {
+                    parseToken(in, token, i, game, counts, file, from);
+                }
+                token = -1;
+                if (b == '\n') {
+                    counts.endGame(game);
+                    comment = false;
+                }
+            } else if (token < 0) {
+                comment |= b == '#' && game.known == 0;
+                token = i;
+            }
+        }
+        return counts;
+    }
+
+    private void parseToken(ByteBuffer in, int from, int to, Context game, Counts counts, Path file, long offset) throws IOException {
+        for (RPSResolver.Move move : MOVES) {
+            if (matches(in, from, to, move.name())) {
+                counts.move(game, move.ordinal());
+                return;
+            }
+        }
+        for (int i = from; i < to; i++) {
+            int move = letter(in.get(i));
+            if (move < 0) {
+                throw new IOException("Unknown move at byte " + (offset + from) + " of " + file);
+            }
+        }
+        for (int i = from; i < to; i++) {
+            counts.move(game, letter(in.get(i)));
+        }
+    }
+
+    private static boolean matches(ByteBuffer in, int from, int to, String name) {
+        if (to - from != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.toUpperCase((char) in.get(from + i)) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int letter(byte b) {
+        switch (b) {
+            case 'R':
+            case 'r':
+                return RPSResolver.Move.ROCK.ordinal();
+            case 'P':
+            case 'p':
+                return RPSResolver.Move.PAPER.ordinal();
+            case 'S':
+            case 's':
+                return RPSResolver.Move.SCISSORS.ordinal();
+            default:
+                return -1;
+        }
+    }
+
+    Counts readSegment(Path segment) throws IOException {
+        Counts counts = new Counts(maxOrder);
+        Map<Long, Context> games = new HashMap<>();
+        MoveEventLog.read(segment, new MoveEventLog.Visitor() {
+            @Override
+            public void move(long gameId, long timeMillis, int round, int playerMove, int aiMove, int result) {
+                Context game = games.computeIfAbsent(gameId, id -> new Context());
+                if (round != game.round + 1) {
+                    game.known = 0; // a gap, or the game started in an earlier segment
+                }
+                game.round = round;
+                counts.move(game, playerMove);
+            }
+
+            @Override
+            public void gameOver(long gameId, long timeMillis, int victories, int defeats, int ties) {
+                Context game = games.remove(gameId);
+                if (game != null) {
+                    counts.endGame(game);
+                }
+            }
+        });
+        for (Context game : games.values()) {
+            counts.endGame(game);
+        }
+        return counts;
+    }
+
+    /**
+     * Last moves of a game being read, as a base-3 number with the last move least significant.
+     */
+    private static final class Context {
+        int recent;
+        int known;
+        int round;
+    }
+
+    /**
+     * Transition counts of every order from 1, in {@link MarkovPredictor} layout.
+     */
+    public static final class Counts {
+        private final long[][] tables;
+        private final int contexts;
+        private long games;
+        private long moves;
+
+        Counts(int maxOrder) {
+            tables = new long[maxOrder][];
+            for (int order = 1; order <= maxOrder; order++) {
+                tables[order - 1] = new long[MarkovPredictor.tableSize(order)];
+            }
+            contexts = tables[maxOrder - 1].length / LENGTH;
+        }
+
+        private void move(Context game, int move) {
+            int context = game.recent;
+            for (int order = 1; order <= Math.min(game.known, tables.length); order++) {
+                int orderContexts = tables[order - 1].length / LENGTH;
+                ++tables[order - 1][(context % orderContexts) * LENGTH + move];
+            }
+            game.recent = (context * LENGTH + move) % contexts;
+            ++game.known;
+            ++moves;
+        }
+
+        private void endGame(Context game) {
+            if (game.known > 0) {
+                ++games;
+            }
+            game.recent = 0;
+            game.known = 0;
+        }
+
+        void add(Counts other) {
+            for (int t = 0; t < tables.length; t++) {
+                for (int i = 0; i < tables[t].length; i++) {
+                    tables[t][i] += other.tables[t][i];
+                }
+            }
+            games += other.games;
+            moves += other.moves;
+        }
+
+        public long count(int order, int index) {
+            return tables[order - 1][index];
+        }
+
+        public long games() {
+            return games;
+        }
+
+        public long moves() {
+            return moves;
+        }
+
+        public void write(Path file) throws IOException {
+            TransitionModel.write(file, tables, games, moves);
+        }
+    }
+}
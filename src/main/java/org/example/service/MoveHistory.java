@@ -0,0 +1,200 @@
+package org.example.service;
+
+import org.example.service.RPSResolver.Move;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Moves packed 2 bits each into a long[] that grows up to {@link #MAX_MOVES} and then wraps around,
+ * dropping the oldest moves. Per-move counters always cover the whole game.
+ */
+class MoveHistory implements Serializable {
+    private static final long serialVersionUID = 4317592843504528113L;
+
+    static final int MAX_MOVES = 1 << 20;
+    private static final int MOVES_PER_WORD = 32;
+    private static final int LETTER_CHUNK = 8192;
+    private static final Move[] MOVES = Move.values();
+
+    private long[] words = new long[1];
+    private int size;
+    private final int[] counts = new int[MOVES.length];
+
+    void add(Move move) {
+        int slot = size & (MAX_MOVES - 1);
+        int word = slot / MOVES_PER_WORD;
+        if (word == words.length) {
+            words = Arrays.copyOf(words, Math.min(words.length * 2, MAX_MOVES / MOVES_PER_WORD));
+        }
+        int shift = (slot % MOVES_PER_WORD) * 2;
+        words[word] = (words[word] & ~(3L << shift)) | ((long) move.ordinal() << shift);
+        ++counts[move.ordinal()];
+        ++size;
+    }
+
+    /**
+     * @param k 0 for the last move, 1 for the one before it, etc.
+     */
+    Move last(int k) {
+        return get(size - 1 - k);
+    }
+
+    /**
+     * @param i absolute move number, must be one of the last {@link #retained()} moves
+     */
+    Move get(int i) {
+        if (i < size - retained() || i >= size) {
+            throw new IndexOutOfBoundsException("Move " + i + " is not retained, size " + size);
+        }
+        int slot = i & (MAX_MOVES - 1);
+        return MOVES[(int) (words[slot / MOVES_PER_WORD] >>> ((slot % MOVES_PER_WORD) * 2)) & 3];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int retained() {
+        return Math.min(size, MAX_MOVES);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int count(Move move) {
+        return counts[move.ordinal()];
+    }
+
+    /**
+     * Most played move, ties resolved in declaration order.
+     */
+    Move favourite() {
+        Move favourite = MOVES[0];
+        for (Move move : MOVES) {
+            if (counts[move.ordinal()] > counts[favourite.ordinal()]) {
+                favourite = move;
+            }
+        }
+        return favourite;
+    }
+
+    /**
+     * Letters of the retained moves, run-length encoded: each run is a letter followed by its length
+     * when that is more than one, e.g. {@code R3PS2} for three ROCKs, a PAPER and two SCISSORS.
+     */
+    String toRunLength() {
+        int size = this.size;
+        StringBuilder out = new StringBuilder();
+        int run = 0;
+        Move previous = null;
+        for (int i = size - Math.min(size, MAX_MOVES); i < size; i++) {
+            Move move = get(i);
+            if (move != previous && previous != null) {
+                appendRun(out, previous, run);
+                run = 0;
+            }
+            previous = move;
+            ++run;
+        }
+        if (previous != null) {
+            appendRun(out, previous, run);
+        }
+        return out.toString();
+    }
+
+    private static void appendRun(StringBuilder out, Move move, int run) {
+        out.append(move.name().charAt(0));
+        if (run > 1) {
+            out.append(run);
+        }
+    }
+
+    /**
+     * @return independent copy, about a quarter byte per retained move
+     */
+    MoveHistory copy() {
+        MoveHistory copy = new MoveHistory();
+        copy.words = words.clone();
+        copy.size = size;
+        System.arraycopy(counts, 0, copy.counts, 0, counts.length);
+        return copy;
+    }
+
+    /**
+     * Writes the letters of the retained moves through a fixed buffer, so memory use doesn't grow with the game.
+     */
+    void writeLetters(OutputStream out) throws IOException {
+        int size = this.size; // moves added meanwhile are left out
+        byte[] chunk = new byte[LETTER_CHUNK];
+        int n = 0;
+        for (int i = size - Math.min(size, MAX_MOVES); i < size; i++) {
+            chunk[n++] = (byte) get(i).name().charAt(0);
+            if (n == chunk.length) {
+                out.write(chunk, 0, n);
+                n = 0;
+            }
+        }
+        out.write(chunk, 0, n);
+    }
+
+    /**
+     * Writes the move counters followed by the retained moves packed 4 per byte.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        int size = this.size; // sessions may be written behind while a move is being added
+        int retained = Math.min(size, MAX_MOVES);
+        VarInts.write(out, size);
+        for (int count : counts) {
+            VarInts.write(out, count);
+        }
+        int packed = 0;
+        int first = size - retained;
+        for (int i = first; i < size; i++) {
+            packed |= get(i).ordinal() << (((i - first) % 4) * 2);
+            if ((i - first) % 4 == 3) {
+                out.writeByte(packed);
+                packed = 0;
+            }
+        }
+        if (retained % 4 != 0) {
+            out.writeByte(packed);
+        }
+    }
+
+    static MoveHistory readFrom(DataInput in) throws IOException {
+        MoveHistory history = new MoveHistory();
+        int size = VarInts.read(in);
+        int[] counts = new int[MOVES.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = VarInts.read(in);
+        }
+        int retained = Math.min(size, MAX_MOVES);
+        history.words = new long[Math.max(1, (retained + MOVES_PER_WORD - 1) / MOVES_PER_WORD)];
+        history.size = size - retained;
+        int packed = 0;
+        for (int i = 0; i < retained; i++) {
+            if (i % 4 == 0) {
+                packed = in.readUnsignedByte();
+            }
+            int ordinal = (packed >>> ((i % 4) * 2)) & 3;
+            if (ordinal >= MOVES.length) {
+                throw new IOException("Malformed move " + ordinal);
+            }
+            history.add(MOVES[ordinal]);
+        }
+        System.arraycopy(counts, 0, history.counts, 0, counts.length);
+        return history;
+    }
+
+    void clear() {
+        words = new long[1];
+        size = 0;
+        Arrays.fill(counts, 0);
+    }
+}
@@ -1,34 +1,137 @@
 package org.example.service;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 @Component
 public class OverallStatsKeeper {
+    static final int DEFAULT_MAX_SESSIONS = 1 << 20;
+    static final Duration DEFAULT_TTL = Duration.ofDays(7);
 
-    private final Map<String, RPSResolver.BaseStats> overallStats = new ConcurrentHashMap<>();
+    private final WinRateIndex index = new WinRateIndex();
+    // session id -> last seen second in the high half, win rate bucket + 1 in the low half
+    private final SessionStatsTable overallStats;
+    private final long ttlSeconds;
+    private final Clock clock;
+    private final long startSecond;
+    // users of other nodes at or below each win rate bucket, replaced by mergeRemote
+    private volatile int[] remoteAtOrBelow = new int[WinRateIndex.RESOLUTION + 1];
+
+    public OverallStatsKeeper() {
+        this(DEFAULT_MAX_SESSIONS, DEFAULT_TTL, Clock.systemUTC());
+    }
+
+    @Autowired
+    public OverallStatsKeeper(@Value("${rps.stats.max-sessions:1048576}") int maxSessions,
+                              @Value("${rps.stats.ttl:7d}") Duration ttl) {
+        this(maxSessions, ttl, Clock.systemUTC());
+    }
+
+    OverallStatsKeeper(int maxSessions, Duration ttl, Clock clock) {
+        this.overallStats = new SessionStatsTable(maxSessions, evicted -> index.remove(bucket(evicted)));
+        this.ttlSeconds = ttl.getSeconds();
+        this.clock = clock;
+        this.startSecond = clock.millis() / 1000;
+    }
 
     public void count(String sessionId, RPSResolver.Response res) {
-        overallStats.put(sessionId, res.statistics);
+        count(sessionId, res.statistics);
+    }
 
+    public void count(String sessionId, RPSResolver.BatchResponse res) {
+        count(sessionId, res.statistics);
+    }
+
+    private void count(String sessionId, RPSResolver.BaseStats statistics) {
+        int bucket = WinRateIndex.bucket(statistics.winRate());
+        long previous = overallStats.put(sessionId, pack(now(), bucket));
+        if (previous == SessionStatsTable.EMPTY) {
+            index.add(bucket);
+        } else {
+            index.replace(bucket(previous), bucket);
+        }
     }
 
     public double getUserPlace(String sessionId) {
-        RPSResolver.BaseStats userFinalStats = overallStats.get(sessionId);
-        if (userFinalStats != null) {
-            double userWinRate = userFinalStats.winRate();
-
-            Map<Integer, Integer> partitioningMap = overallStats.entrySet().stream()
-                    .collect(Collectors.toMap(
-                            e -> Double.compare(e.getValue().winRate(), userWinRate) <= 0 ? 0 : 1,
-                            e -> 1,
-                            Integer::sum));
-            return partitioningMap.getOrDefault(0, 0) /
-                    (double) (partitioningMap.getOrDefault(0, 0) + partitioningMap.getOrDefault(1, 0));
+        long userStats = overallStats.get(sessionId);
+        if (userStats != SessionStatsTable.EMPTY) {
+            int[] remote = remoteAtOrBelow;
+            int bucket = bucket(userStats);
+            int total = index.size() + remote[WinRateIndex.RESOLUTION];
+            return total == 0 ? 0.0 : Math.min(1.0, (index.countAtOrBelow(bucket) + remote[bucket]) / (double) total);
         }
         return 0.0;
     }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * @return win rates of the users of this node, to be merged by the other nodes
+     */
+    public byte[] localSketch() {
+        return WinRateSketch.encode(index.counts());
+    }
+
+    /**
+     * Ranks users against the given sketches of the other nodes from now on, in place of the previous ones.
+     */
+    public void mergeRemote(Collection<byte[]> sketches) throws IOException {
+        List<int[]> counts = new ArrayList<>(sketches.size());
+        for (byte[] sketch : sketches) {
+            counts.add(WinRateSketch.decode(sketch));
+        }
+        remoteAtOrBelow = WinRateSketch.mergeCumulative(counts);
+    }
+
+    /**
+     * @return users per win rate bucket, of this node and of the other nodes last merged
+     */
+    int[] winRateCounts() {
+        int[] counts = index.counts();
+        int[] remote = remoteAtOrBelow;
+        counts[0] += remote[0];
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += remote[i] - remote[i - 1];
+        }
+        return counts;
+    }
+
+    public void forget(String sessionId) {
+        long previous = overallStats.remove(sessionId);
+        if (previous != SessionStatsTable.EMPTY) {
+            index.remove(bucket(previous));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rps.stats.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        overallStats.removeBelow(expiryThreshold());
+    }
+
+    private long now() {
+        return clock.millis() / 1000 - startSecond + 1;
+    }
+
+    private long expiryThreshold() {
+        return pack(now() - ttlSeconds, 0);
+    }
+
+    private static long pack(long second, int bucket) {
+        return (second << 32) | (bucket + 1);
+    }
+
+    private static int bucket(long packed) {
+        return (int) packed - 1;
+    }
 }
@@ -0,0 +1,107 @@
+package org.example.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transition counts of all players together, laid out like the {@link MarkovPredictor} table.
+ * Every session adds to it through striped counters, so concurrent moves don't contend on a lock,
+ * and new sessions use it as a prior until they have data of their own. Move and game totals are
+ * kept alongside for the global stats.
+ */
+@Component
+public class PopulationModel {
+    /**
+     * Weight of the population distribution in pseudo-moves. A session row with many more moves than this
+     * is effectively predicted from its own counts.
+     */
+    static final double PRIOR_STRENGTH = 8.0;
+
+    private static volatile PopulationModel active;
+
+    private final int order;
+    private final TransitionModel model;
+    private final LongAdder[] counts;
+    private final LongAdder[] moves = new LongAdder[RPSResolver.Move.values().length];
+    private final LongAdder games = new LongAdder();
+    private final LongAdder gameRounds = new LongAdder();
+
+    @Autowired
+    public PopulationModel(@Value("${rps.markov.order:2}") int order,
+                           @Value("${rps.model.file:}") String modelFile) throws IOException {
+        this(order, modelFile.isEmpty() ? null : TransitionModel.map(Paths.get(modelFile)));
+    }
+
+    public PopulationModel(int order) {
+        this(order, (TransitionModel) null);
+    }
+
+    /**
+     * @param model counts learned offline, may be null
+     */
+    public PopulationModel(int order, TransitionModel model) {
+        if (model != null && model.maxOrder() < order) {
+            throw new IllegalArgumentException("Model of order " + model.maxOrder() + " can't seed order " + order);
+        }
+        this.order = order;
+        this.model = model;
+        this.counts = new LongAdder[MarkovPredictor.tableSize(order)];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * The model of the running application, used to reattach deserialized sessions.
+     */
+    static PopulationModel active() {
+        return active;
+    }
+
+    @PostConstruct
+    void activate() {
+        active = this;
+    }
+
+    int order() {
+        return order;
+    }
+
+    void record(int index) {
+        counts[index].increment();
+    }
+
+    long count(int index) {
+        return model == null ? counts[index].sum() : counts[index].sum() + model.count(order, index);
+    }
+
+    void recordMove(int move) {
+        moves[move].increment();
+    }
+
+    long moveCount(int move) {
+        return moves[move].sum();
+    }
+
+    void recordGame(int rounds) {
+        games.increment();
+        gameRounds.add(rounds);
+    }
+
+    long games() {
+        return games.sum();
+    }
+
+    long gameRounds() {
+        return gameRounds.sum();
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Predicts the player's next move of a session. Predictions and updates alternate, one each per round,
+ * and must not allocate: they run on every {@code /play}.
+ */
+interface Predictor {
+
+    /**
+     * @param moves    player's moves of the current game
+     * @param tieBreak ordinal preferred when several moves are equally likely
+     * @return ordinal of the player's most likely next move, -1 if there is nothing to predict from
+     */
+    int predict(MoveHistory moves, int tieBreak);
+
+    /**
+     * Learns a round. The player's move has already been added to {@code moves}.
+     */
+    void update(MoveHistory moves, int aiMove);
+
+    /**
+     * Forgets the current game.
+     */
+    void reset();
+
+    /**
+     * Restores the state of the current game from a deserialized history.
+     */
+    void rebuild(MoveHistory moves);
+
+    /**
+     * Writes the state that can't be rebuilt from the move history.
+     */
+    default void writeTo(DataOutput out) throws IOException {}
+
+    default void readFrom(DataInput in) throws IOException {}
+}
@@ -0,0 +1,177 @@
+package org.example.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.util.Arrays;
+
+/**
+ * Members of the {@link EnsemblePredictor}. Besides the session's own Markov chain and the longest
+ * match, there are chains of other orders and move counts of the current game, and predictors from
+ * the AI's moves, which catch players who react to what we played.
+ */
+final class Predictors {
+    private static final int LENGTH = RPSResolver.Move.values().length;
+    private static final int MAX_GAME_ORDER = 3;
+
+    private Predictors() {}
+
+    /**
+     * @param primary      the session's Markov chain, which is serialized by the resolver and preferred
+     *                     by the ensemble
+     * @param primaryOrder order of that chain, the other orders up to 3 are added per game
+     */
+    static EnsemblePredictor standard(Predictor primary, int primaryOrder) {
+        int extraOrders = MAX_GAME_ORDER - (primaryOrder <= MAX_GAME_ORDER ? 1 : 0);
+        Predictor[] members = new Predictor[5 + extraOrders];
+        int i = 0;
+        members[i++] = primary;
+        members[i++] = new LongestMatchPredictor();
+        for (int order = MarkovPredictor.MIN_ORDER; order <= MAX_GAME_ORDER; order++) {
+            if (order != primaryOrder) {
+                members[i++] = markov(order);
+            }
+        }
+        members[i++] = frequency();
+        members[i++] = aiLast();
+        members[i] = aiFavourite();
+        return new EnsemblePredictor(0, members);
+    }
+
+    /**
+     * Markov chain that learns from the current game only.
+     */
+    static Predictor markov(int order) {
+        return new GameMarkov(order);
+    }
+
+    /**
+     * The player's most played move of the current game.
+     */
+    static Predictor frequency() {
+        return new Frequency();
+    }
+
+    /**
+     * The AI's last move, rotated by the ensemble into the moves that beat it or lose to it.
+     */
+    static Predictor aiLast() {
+        return new AiMoves(false);
+    }
+
+    /**
+     * The AI's most played move of the current game.
+     */
+    static Predictor aiFavourite() {
+        return new AiMoves(true);
+    }
+
+    private static final class GameMarkov implements Predictor {
+        private final MarkovPredictor chain;
+
+        GameMarkov(int order) {
+            chain = new MarkovPredictor(order);
+        }
+
+        @Override
+        public int predict(MoveHistory moves, int tieBreak) {
+            return chain.predict(tieBreak);
+        }
+
+        @Override
+        public void update(MoveHistory moves, int aiMove) {
+            chain.update(moves.last(0).ordinal());
+        }
+
+        @Override
+        public void reset() {
+            chain.clear();
+        }
+
+        @Override
+        public void rebuild(MoveHistory moves) {
+            chain.clear();
+            for (int i = moves.size() - moves.retained(); i < moves.size(); i++) {
+                chain.update(moves.get(i).ordinal());
+            }
+        }
+    }
+
+    private static final class Frequency implements Predictor {
+        @Override
+        public int predict(MoveHistory moves, int tieBreak) {
+            return moves.isEmpty() ? -1 : moves.favourite().ordinal();
+        }
+
+        @Override
+        public void update(MoveHistory moves, int aiMove) {}
+
+        @Override
+        public void reset() {}
+
+        @Override
+        public void rebuild(MoveHistory moves) {}
+    }
+
+    /**
+     * AI moves aren't in the history, so their counts are serialized.
+     */
+    private static final class AiMoves implements Predictor {
+        private final boolean favourite;
+        private final int[] counts = new int[LENGTH];
+        private int last = -1;
+
+        AiMoves(boolean favourite) {
+            this.favourite = favourite;
+        }
+
+        @Override
+        public int predict(MoveHistory moves, int tieBreak) {
+            if (!favourite || last < 0) {
+                return last;
+            }
+            int best = last;
+            for (int j = 0; j < LENGTH; j++) {
+                if (counts[j] > counts[best]) {
+                    best = j;
+                }
+            }
+            return best;
+        }
+
+        @Override
+        public void update(MoveHistory moves, int aiMove) {
+            last = aiMove;
+            ++counts[aiMove];
+        }
+
+        @Override
+        public void reset() {
+            last = -1;
+            Arrays.fill(counts, 0);
+        }
+
+        @Override
+        public void rebuild(MoveHistory moves) {}
+
+        @Override
+        public void writeTo(DataOutput out) throws IOException {
+            out.writeByte(last + 1);
+            for (int count : counts) {
+                VarInts.write(out, count);
+            }
+        }
+
+        @Override
+        public void readFrom(DataInput in) throws IOException {
+            last = in.readUnsignedByte() - 1;
+            if (last >= LENGTH) {
+                throw new InvalidObjectException("Malformed AI move " + last);
+            }
+            for (int j = 0; j < LENGTH; j++) {
+                counts[j] = VarInts.read(in);
+            }
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package org.example.service;
 
+import org.example.eventlog.MoveEventLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.annotation.SessionScope;
 
-import java.io.Serializable;
+import java.io.*;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ThreadLocalRandom;
 
 
 @Component
@@ -13,95 +16,293 @@ import java.util.stream.Collectors;
 public class RPSResolver implements Serializable {
     private static final long serialVersionUID = -8077201717643372583L;
 
-    private static final int LENGTH = Move.values().length;
-
-    private final int[][] markovChain;
-    private final Random rand = new Random();
-    private LinkedList<Move> movesHistory;
+    private static final Move[] MOVES = Move.values();
+    private static final int LENGTH = MOVES.length;
+    public static final int MAX_BATCH_SIZE = 10_000;
+
+    // fields of the default serialized form written by earlier versions, see readObject
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("markovChain", int[][].class),
+            new ObjectStreamField("rand", Random.class),
+            new ObjectStreamField("movesHistory", LinkedList.class),
+            new ObjectStreamField("statistics", BaseStats.class)
+    };
+
+    private MarkovPredictor predictor;
+    private transient EnsemblePredictor ensemble;
+    private transient PopulationModel population;
+    private transient MoveEventLog events;
+    private Random rand;
+    private MoveHistory movesHistory;
+    private MoveHistory lastGame;
     private BaseStats statistics;
+    private long gameId = ThreadLocalRandom.current().nextLong();
 
 
     public RPSResolver() {
-        movesHistory = new LinkedList<>();
+        this(MarkovPredictor.DEFAULT_ORDER, new Random(), null);
+    }
+
+    /**
+     * @param events log of every move and finished game, may be null
+     */
+    @Autowired
+    public RPSResolver(@Value("${rps.markov.order:2}") int markovOrder, PopulationModel population, MoveEventLog events) {
+        this(markovOrder, new Random(), population);
+        this.events = events;
+    }
+
+    /**
+     * @param rand       breaks ties between predicted moves and picks moves while there is nothing to predict from,
+     *                   seed it for reproducible games
+     * @param population shared prior, null to learn from this player only
+     */
+    public RPSResolver(int markovOrder, Random rand, PopulationModel population) {
+        this.rand = rand;
+        this.population = population;
+        movesHistory = new MoveHistory();
+        lastGame = new MoveHistory();
         statistics = new BaseStats();
-        markovChain = new int[LENGTH * LENGTH][LENGTH];
+        predictor = new MarkovPredictor(markovOrder);
+        ensemble = Predictors.standard(new SessionMarkov(), markovOrder);
     }
 
 
     public Response play(String moveStr) {
-        Move move = Move.valueOf(moveStr.toUpperCase());
-        Move lastMove = movesHistory.peekLast();
-        Move preLastMove = movesHistory.size() > 1 ? movesHistory.get(movesHistory.size() - 2) : null;
-        Move aiMove = nextMove(lastMove, preLastMove);
+        return play(Move.valueOf(moveStr.toUpperCase()));
+    }
 
-        updateState(move, lastMove, preLastMove);
+    public Response play(Move move) {
+        return play(move, statistics);
+    }
 
-        return makeDecision(move, aiMove);
+    /**
+     * Plays the moves in order. All moves are validated before any of them is applied.
+     */
+    public BatchResponse playAll(List<String> moveStrs) {
+        if (moveStrs.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Too many moves in one batch: " + moveStrs.size());
+        }
+        Move[] moves = new Move[moveStrs.size()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = Move.valueOf(moveStrs.get(i).toUpperCase());
+        }
+        List<Response> rounds = new ArrayList<>(moves.length);
+        for (Move move : moves) {
+            rounds.add(play(move, null));
+        }
+        return new BatchResponse(rounds, statistics);
+    }
+
+    private Response play(Move move, BaseStats responseStats) {
+        Move aiMove = nextMove();
+
+        updateState(move, aiMove);
+
+        Response res = makeDecision(move, aiMove, responseStats);
+        if (events != null) {
+            events.move(gameId, movesHistory.size(), move.ordinal(), aiMove.ordinal(), res.getResult().ordinal());
+        }
+        return res;
     }
 
     public DetailedStats stop() {
         DetailedStats ds = new DetailedStats(statistics);
         if (!movesHistory.isEmpty()) {
-            Map<String, Integer> reducedMovesHistory = movesHistory.stream()
-                    .collect(Collectors.toMap(Enum::toString, m -> 1, Integer::sum));
-            reducedMovesHistory.entrySet().stream()
-                    .max(Map.Entry.comparingByValue())
-                    .ifPresent(m -> ds.setFavouriteMove(m.getKey()));
-            Move favouriteMove = Move.valueOf(ds.getFavouriteMove());
-            ds.setPercentageOfFavouriteMove(
-                    reducedMovesHistory.getOrDefault(favouriteMove.toString(), 0) /
-                            (double) movesHistory.size());
+            Move favouriteMove = movesHistory.favourite();
+            ds.setFavouriteMove(favouriteMove.toString());
+            ds.setPercentageOfFavouriteMove(movesHistory.count(favouriteMove) / (double) movesHistory.size());
             ds.setWinRate(statistics.winRate());
-            ds.setMovesHistory(movesHistory.stream()
-                    .map(Enum::toString)
-                    .collect(Collectors.toList()));
+            ds.setHistory(movesHistory.toRunLength());
         }
+        if (population != null && !movesHistory.isEmpty()) {
+            population.recordGame(movesHistory.size());
+        }
+        if (events != null) {
+            events.gameOver(gameId, statistics.getVictories(), statistics.getDefeats(), statistics.getTies());
+        }
+        lastGame = movesHistory;
+        movesHistory = new MoveHistory();
         reset();
+        gameId = ThreadLocalRandom.current().nextLong();
         return ds;
     }
 
+    /**
+     * Copies the moves, so they can be streamed while the game goes on. Like every other access it must be
+     * made by the thread that plays the session's moves.
+     *
+     * @param finished the last stopped game instead of the current one
+     */
+    public Letters history(boolean finished) {
+        return (finished ? lastGame : movesHistory).copy()::writeLetters;
+    }
+
+    /**
+     * Move letters of a game, see {@link MoveHistory#writeLetters}.
+     */
+    public interface Letters {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
     void resetState() {
-        Arrays.stream(markovChain).forEach(arr ->  Arrays.fill(arr, 0));
+        predictor.clear();
+        ensemble.clear();
         reset();
     }
 
     void reset() {
         statistics.reset();
         movesHistory.clear();
+        ensemble.reset();
     }
 
-    private Move nextMove(Move last, Move preLast) {
-        int randomChoice = rand.nextInt(Move.values().length);
-        if (movesHistory.size() < 2) {
-            return Move.values()[randomChoice];
-        }
-        int maxJ = randomChoice;
-        int row = LENGTH * preLast.ordinal() + last.ordinal();
-        for (int j = 0; j < LENGTH; j++) {
-            if (markovChain[row][j] > markovChain[row][maxJ]) {
-                maxJ = j;
-            }
-        }
-        return Move.values()[maxJ].losesTo;
+    private Move nextMove() {
+        int randomChoice = rand.nextInt(LENGTH);
+        int predicted = ensemble.predict(movesHistory, randomChoice);
+        return predicted < 0 ? MOVES[randomChoice] : MOVES[predicted].losesTo;
     }
 
-    private void updateState(Move move, Move lastMove, Move preLastMove) {
-        if (lastMove != null && preLastMove != null) {
-            ++markovChain[LENGTH * preLastMove.ordinal() + lastMove.ordinal()][move.ordinal()];
+    private void updateState(Move move, Move aiMove) {
+        movesHistory.add(move);
+        ensemble.update(movesHistory, aiMove.ordinal());
+        if (population != null) {
+            population.recordMove(move.ordinal());
         }
-        movesHistory.addLast(move);
     }
 
-    private Response makeDecision(Move move, Move aiMove) {
+    private Response makeDecision(Move move, Move aiMove, BaseStats responseStats) {
         if (move == aiMove) {
             statistics.setTies(statistics.getTies() + 1);
-            return new Response(move.toString(), aiMove.toString(), Decision.TIE, statistics);
+            return new Response(move.toString(), aiMove.toString(), Decision.TIE, responseStats);
         } else if (move.losesTo == aiMove) {
             statistics.setDefeats(statistics.getDefeats() + 1);
-            return new Response(move.toString(), aiMove.toString(), Decision.DEFEAT, statistics); // ai won
+            return new Response(move.toString(), aiMove.toString(), Decision.DEFEAT, responseStats); // ai won
         } else {
             statistics.setVictories(statistics.getVictories() + 1);
-            return new Response(move.toString(), aiMove.toString(), Decision.VICTORY, statistics); // ai lost
+            return new Response(move.toString(), aiMove.toString(), Decision.VICTORY, responseStats); // ai lost
+        }
+    }
+
+    private Object writeReplace() {
+        return new SerializedForm(this);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        // only sessions stored before SerializedForm was introduced get here
+        ObjectInputStream.GetField fields = in.readFields();
+        int[][] markovChain = (int[][]) fields.get("markovChain", null);
+        statistics = (BaseStats) fields.get("statistics", null);
+        List<Move> legacyHistory = (List<Move>) fields.get("movesHistory", null);
+        if (markovChain == null || statistics == null || legacyHistory == null) {
+            throw new InvalidObjectException("Incomplete RPSResolver state");
+        }
+        movesHistory = new MoveHistory();
+        legacyHistory.forEach(movesHistory::add);
+        lastGame = new MoveHistory();
+        predictor = MarkovPredictor.fromSecondOrderRows(markovChain);
+        ensemble = Predictors.standard(new SessionMarkov(), predictor.order());
+        ensemble.rebuild(movesHistory);
+        rand = new Random();
+        population = PopulationModel.active();
+        events = MoveEventLog.active();
+        gameId = ThreadLocalRandom.current().nextLong();
+    }
+
+    /**
+     * The session's own chain as an ensemble member. It learns across games and from the population.
+     */
+    private class SessionMarkov implements Predictor {
+        @Override
+        public int predict(MoveHistory moves, int tieBreak) {
+            return predictor.predict(tieBreak, population);
+        }
+
+        @Override
+        public void update(MoveHistory moves, int aiMove) {
+            predictor.update(moves.last(0).ordinal(), population);
+        }
+
+        @Override
+        public void reset() {
+            predictor.resetContext();
+        }
+
+        @Override
+        public void rebuild(MoveHistory moves) {
+            predictor.rebuildContext(moves);
+        }
+    }
+
+    /**
+     * Versioned session form: varint stats, the sparse Markov table, the packed move history, the game id,
+     * the ensemble state and the packed history of the last stopped game. Version 1 stored a dense second
+     * order chain, versions before 3 had no game id, versions before 4 no ensemble state and versions
+     * before 5 no last game.
+     */
+    private static class SerializedForm implements Externalizable {
+        private static final long serialVersionUID = 1L;
+        private static final int VERSION = 5;
+
+        private RPSResolver resolver;
+
+        public SerializedForm() {}
+
+        SerializedForm(RPSResolver resolver) {
+            this.resolver = resolver;
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeByte(VERSION);
+            BaseStats statistics = resolver.statistics;
+            VarInts.write(out, statistics.getVictories());
+            VarInts.write(out, statistics.getDefeats());
+            VarInts.write(out, statistics.getTies());
+            resolver.predictor.writeTo(out);
+            resolver.movesHistory.writeTo(out);
+            out.writeLong(resolver.gameId);
+            resolver.ensemble.writeTo(out);
+            resolver.lastGame.writeTo(out);
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) throws IOException {
+            int version = in.readUnsignedByte();
+            if (version < 1 || version > VERSION) {
+                throw new InvalidObjectException("Unsupported RPSResolver version " + version);
+            }
+            resolver = new RPSResolver(MarkovPredictor.DEFAULT_ORDER, new Random(), PopulationModel.active());
+            resolver.events = MoveEventLog.active();
+            resolver.statistics = new BaseStats(VarInts.read(in), VarInts.read(in), VarInts.read(in));
+            if (version == 1) {
+                int[][] markovChain = new int[LENGTH * LENGTH][LENGTH];
+                for (int[] row : markovChain) {
+                    for (int j = 0; j < row.length; j++) {
+                        row[j] = VarInts.read(in);
+                    }
+                }
+                resolver.predictor = MarkovPredictor.fromSecondOrderRows(markovChain);
+            } else {
+                resolver.predictor = MarkovPredictor.readFrom(in);
+            }
+            resolver.movesHistory = MoveHistory.readFrom(in);
+            resolver.ensemble = Predictors.standard(resolver.new SessionMarkov(), resolver.predictor.order());
+            resolver.ensemble.rebuild(resolver.movesHistory);
+            if (version >= 3) {
+                resolver.gameId = in.readLong();
+            }
+            if (version >= 4) {
+                resolver.ensemble.readFrom(in);
+            }
+            if (version >= 5) {
+                resolver.lastGame = MoveHistory.readFrom(in);
+            }
+        }
+
+        private Object readResolve() {
+            return resolver;
         }
     }
 
@@ -140,6 +341,18 @@ public class RPSResolver implements Serializable {
             return new Response(error);
         }
 
+        public String getPlayerMove() {
+            return playerMove;
+        }
+
+        public String getAiMove() {
+            return aiMove;
+        }
+
+        public Decision getResult() {
+            return result;
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
@@ -155,7 +368,20 @@ public class RPSResolver implements Serializable {
         }
     }
 
-    enum Decision {
+    /**
+     * Per-move results without statistics, followed by the statistics after the last move.
+     */
+    public static class BatchResponse {
+        List<Response> rounds;
+        BaseStats statistics;
+
+        public BatchResponse(List<Response> rounds, BaseStats statistics) {
+            this.rounds = rounds;
+            this.statistics = statistics;
+        }
+    }
+
+    public enum Decision {
         TIE, VICTORY, DEFEAT
     }
 
@@ -217,7 +443,7 @@ public class RPSResolver implements Serializable {
         private String favouriteMove;
         private double percentageOfFavouriteMove;
         private double winRate;
-        private List<String> movesHistory;
+        private String history;
         private double betterThanOtherUsersPercentage;
 
         public DetailedStats(BaseStats baseStats) {
@@ -248,12 +474,15 @@ public class RPSResolver implements Serializable {
             this.winRate = winRate;
         }
 
-        public List<String> getMovesHistory() {
-            return movesHistory;
+        /**
+         * @return run-length encoded move letters, see {@link MoveHistory#toRunLength()}
+         */
+        public String getHistory() {
+            return history;
         }
 
-        public void setMovesHistory(List<String> movesHistory) {
-            this.movesHistory = movesHistory;
+        public void setHistory(String history) {
+            this.history = history;
         }
 
         public double getBetterThanOtherUsersPercentage() {
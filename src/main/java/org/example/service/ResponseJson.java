@@ -0,0 +1,247 @@
+package org.example.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encodes {@link RPSResolver.Response} and {@link RPSResolver.BatchResponse} to the same UTF-8 JSON as Gson,
+ * without reflection and without building a String. Member names, moves and decisions are copied from
+ * pre-encoded fragments and numbers are written digit by digit into a buffer that is reused from one
+ * response to the next, so once the buffer has grown the only allocation is the copy of the result.
+ * <p>
+ * Responses hold the live statistics of their game, so they must be encoded before the next move.
+ * Not thread-safe, keep one per thread.
+ */
+public final class ResponseJson {
+    private static final byte[] PLAYER_MOVE = ascii("\"playerMove\":");
+    private static final byte[] AI_MOVE = ascii("\"aiMove\":");
+    private static final byte[] RESULT = ascii("\"result\":");
+    private static final byte[] STATISTICS = ascii("\"statistics\":");
+    private static final byte[] VICTORIES = ascii("\"victories\":");
+    private static final byte[] DEFEATS = ascii("\"defeats\":");
+    private static final byte[] TIES = ascii("\"ties\":");
+    private static final byte[] ROUNDS = ascii("\"rounds\":");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    private static final RPSResolver.Move[] MOVES = RPSResolver.Move.values();
+    private static final byte[][] MOVE_VALUES = new byte[MOVES.length][];
+    private static final byte[][] DECISION_VALUES = new byte[RPSResolver.Decision.values().length][];
+
+    static {
+        for (RPSResolver.Move move : MOVES) {
+            MOVE_VALUES[move.ordinal()] = ascii('"' + move.toString() + '"');
+        }
+        for (RPSResolver.Decision decision : RPSResolver.Decision.values()) {
+            DECISION_VALUES[decision.ordinal()] = ascii('"' + decision.name() + '"');
+        }
+    }
+
+    private byte[] buffer = new byte[256];
+    private int size;
+    private boolean empty; // no member or element in the innermost object or array yet
+
+    /**
+     * Replaces the buffer contents with the JSON of a response.
+     */
+    public void write(RPSResolver.Response response) {
+        size = 0;
+        response(response);
+    }
+
+    /**
+     * Replaces the buffer contents with the JSON of a batch.
+     */
+    public void write(RPSResolver.BatchResponse batch) {
+        size = 0;
+        begin('{');
+        if (batch.rounds != null) {
+            name(ROUNDS);
+            List<RPSResolver.Response> rounds = batch.rounds;
+            begin('[');
+            for (int i = 0; i < rounds.size(); i++) {
+                element();
+                response(rounds.get(i));
+            }
+            end(']');
+        }
+        if (batch.statistics != null) {
+            name(STATISTICS);
+            statistics(batch.statistics);
+        }
+        end('}');
+    }
+
+    /**
+     * @return length of the JSON in bytes
+     */
+    public int size() {
+        return size;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, size);
+    }
+
+    /**
+     * @return copy of the JSON, for callers that can't write it out right away
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private void response(RPSResolver.Response response) {
+        if (response == null) {
+            put(NULL);
+            return;
+        }
+        begin('{');
+        if (response.playerMove != null) {
+            name(PLAYER_MOVE);
+            string(response.playerMove);
+        }
+        if (response.aiMove != null) {
+            name(AI_MOVE);
+            string(response.aiMove);
+        }
+        if (response.result != null) {
+            name(RESULT);
+            put(DECISION_VALUES[response.result.ordinal()]);
+        }
+        if (response.statistics != null) {
+            name(STATISTICS);
+            statistics(response.statistics);
+        }
+        end('}');
+    }
+
+    private void statistics(RPSResolver.BaseStats stats) {
+        begin('{');
+        name(VICTORIES);
+        number(stats.getVictories());
+        name(DEFEATS);
+        number(stats.getDefeats());
+        name(TIES);
+        number(stats.getTies());
+        end('}');
+    }
+
+    private void begin(char bracket) {
+        ensure(1);
+        buffer[size++] = (byte) bracket;
+        empty = true;
+    }
+
+    private void end(char bracket) {
+        ensure(1);
+        buffer[size++] = (byte) bracket;
+        empty = false;
+    }
+
+    private void name(byte[] name) {
+        element();
+        put(name);
+    }
+
+    private void element() {
+        if (!empty) {
+            ensure(1);
+            buffer[size++] = ',';
+        }
+        empty = false;
+    }
+
+    private void number(int value) {
+        ensure(11);
+        long rest = value;
+        if (rest < 0) {
+            buffer[size++] = '-';
+            rest = -rest;
+        }
+        int digits = 1;
+        for (long bound = 10; bound <= rest; bound *= 10) {
+            digits++;
+        }
+        for (int i = size + digits - 1; i >= size; i--) {
+            buffer[i] = (byte) ('0' + rest % 10);
+            rest /= 10;
+        }
+        size += digits;
+    }
+
+    private void string(String value) {
+        for (int i = 0; i < MOVES.length; i++) {
+            if (MOVES[i].toString().equals(value)) {
+                put(MOVE_VALUES[i]);
+                return;
+            }
+        }
+        // anything else is escaped like Gson's HTML-safe writer does
+        ensure(2);
+        buffer[size++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c == '"' || c == '\\' || c == '<' || c == '>' || c == '&' || c == '=' || c == '\''
+                    || c == '\u2028' || c == '\u2029') {
+                escape(c);
+            } else if (c < 0x80) {
+                ensure(1);
+                buffer[size++] = (byte) c;
+            } else {
+                int end = i + 1;
+                if (Character.isHighSurrogate(c) && end < value.length() && Character.isLowSurrogate(value.charAt(end))) {
+                    end++;
+                }
+                put(value.substring(i, end).getBytes(StandardCharsets.UTF_8));
+                i = end - 1;
+            }
+        }
+        ensure(1);
+        buffer[size++] = '"';
+    }
+
+    private void escape(char c) {
+        char shortForm;
+        switch (c) {
+            case '"': shortForm = '"'; break;
+            case '\\': shortForm = '\\'; break;
+            case '\t': shortForm = 't'; break;
+            case '\b': shortForm = 'b'; break;
+            case '\n': shortForm = 'n'; break;
+            case '\r': shortForm = 'r'; break;
+            case '\f': shortForm = 'f'; break;
+            default: shortForm = 0;
+        }
+        if (shortForm != 0) {
+            ensure(2);
+            buffer[size++] = '\\';
+            buffer[size++] = (byte) shortForm;
+        } else {
+            ensure(6);
+            buffer[size++] = '\\';
+            buffer[size++] = 'u';
+            for (int shift = 12; shift >= 0; shift -= 4) {
+                buffer[size++] = HEX[c >>> shift & 0xF];
+            }
+        }
+    }
+
+    private void put(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    private void ensure(int bytes) {
+        if (size + bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + bytes));
+        }
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,225 @@
+package org.example.service;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Bounded map from session id to a packed long, without per-entry objects. Session ids are kept as
+ * two longs: the 128 bits of a UUID id, or a 128-bit hash of any other id. The table is split into
+ * stripes with their own lock and linear probing arrays.
+ * <p>
+ * Values must be non-zero and should grow with time: when a stripe is full, the smallest of the next
+ * {@value #SAMPLE} entries after the stripe's clock hand is dropped, so a put never scans the whole stripe.
+ * Expired entries are left to {@link #removeBelow}, which the owner runs on its own schedule.
+ */
+class SessionStatsTable {
+    static final long EMPTY = 0;
+    private static final int STRIPES = 64;
+    static final int SAMPLE = 8;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final LongConsumer onEvict;
+
+    /**
+     * @param onEvict called with the value of every entry dropped to make room or by {@link #removeBelow}
+     */
+    SessionStatsTable(int maxSessions, LongConsumer onEvict) {
+        this.onEvict = onEvict;
+        int perStripe = Math.max(1, (maxSessions + STRIPES - 1) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    /**
+     * @return previous value or {@link #EMPTY}
+     */
+    long put(String sessionId, long value) {
+        long hi = hi(sessionId);
+        long lo = lo(sessionId, hi);
+        long hash = mix(hi ^ lo);
+        Stripe stripe = stripes[(int) (hash >>> 58)];
+        synchronized (stripe) {
+            int i = stripe.find(hi, lo, (int) hash);
+            long previous = stripe.values[i];
+            if (previous == EMPTY && stripe.size == stripe.maxSize) {
+                stripe.evictOne(onEvict);
+                i = stripe.find(hi, lo, (int) hash);
+            }
+            if (previous == EMPTY) {
+                stripe.his[i] = hi;
+                stripe.los[i] = lo;
+                ++stripe.size;
+            }
+            stripe.values[i] = value;
+            return previous;
+        }
+    }
+
+    long get(String sessionId) {
+        long hi = hi(sessionId);
+        long lo = lo(sessionId, hi);
+        long hash = mix(hi ^ lo);
+        Stripe stripe = stripes[(int) (hash >>> 58)];
+        synchronized (stripe) {
+            return stripe.values[stripe.find(hi, lo, (int) hash)];
+        }
+    }
+
+    /**
+     * @return removed value or {@link #EMPTY}, the eviction callback is not called
+     */
+    long remove(String sessionId) {
+        long hi = hi(sessionId);
+        long lo = lo(sessionId, hi);
+        long hash = mix(hi ^ lo);
+        Stripe stripe = stripes[(int) (hash >>> 58)];
+        synchronized (stripe) {
+            int i = stripe.find(hi, lo, (int) hash);
+            long previous = stripe.values[i];
+            if (previous != EMPTY) {
+                stripe.removeAt(i);
+            }
+            return previous;
+        }
+    }
+
+    /**
+     * Drops every entry with a value below the threshold, one stripe at a time.
+     */
+    void removeBelow(long threshold) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.removeBelow(threshold, onEvict);
+            }
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    // 0123456789abcdef0123456789abcdef0123 -> canonical UUID text is parsed, anything else is hashed
+    private static boolean isUuid(String id) {
+        return id.length() == 36 && id.charAt(8) == '-' && id.charAt(13) == '-' && id.charAt(18) == '-' && id.charAt(23) == '-';
+    }
+
+    private static long hi(String id) {
+        return isUuid(id) ? hex(id, 0, 18) : hash(id, 0x9E3779B97F4A7C15L);
+    }
+
+    private static long lo(String id, long hi) {
+        return isUuid(id) ? hex(id, 19, 36) : hash(id, hi);
+    }
+
+    private static long hex(String id, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            char c = id.charAt(i);
+            if (c != '-') {
+                int digit = Character.digit(c, 16);
+                if (digit < 0) {
+                    return hash(id, from);
+                }
+                value = (value << 4) | digit;
+            }
+        }
+        return value;
+    }
+
+    private static long hash(String id, long seed) {
+        long h = seed;
+        for (int i = 0; i < id.length(); i++) {
+            h = mix(h + id.charAt(i));
+        }
+        return mix(h + id.length());
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class Stripe {
+        final long[] his;
+        final long[] los;
+        final long[] values;
+        final int mask;
+        final int maxSize;
+        int size;
+        int hand;
+
+        Stripe(int maxSize) {
+            this.maxSize = maxSize;
+            int capacity = Integer.highestOneBit(maxSize * 2 - 1) << 1; // load factor at most 0.5
+            his = new long[capacity];
+            los = new long[capacity];
+            values = new long[capacity];
+            mask = capacity - 1;
+        }
+
+        /**
+         * @return slot of the key, or the empty slot where it belongs
+         */
+        int find(long hi, long lo, int hash) {
+            int i = hash & mask;
+            while (values[i] != EMPTY && (his[i] != hi || los[i] != lo)) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        // drops the smallest of the next SAMPLE entries from the hand on, which moves past them
+        void evictOne(LongConsumer onEvict) {
+            int oldest = -1;
+            for (int seen = 0; seen < SAMPLE && seen < size; hand = (hand + 1) & mask) {
+                if (values[hand] != EMPTY) {
+                    if (oldest < 0 || values[hand] < values[oldest]) {
+                        oldest = hand;
+                    }
+                    ++seen;
+                }
+            }
+            onEvict.accept(values[oldest]);
+            removeAt(oldest);
+        }
+
+        void removeBelow(long threshold, LongConsumer onEvict) {
+            for (int i = 0; i < values.length; i++) {
+                // removeAt may shift a later entry into slot i, so look at it again
+                while (values[i] != EMPTY && values[i] < threshold) {
+                    onEvict.accept(values[i]);
+                    removeAt(i);
+                }
+            }
+        }
+
+        // backward shift deletion keeps probe sequences intact without tombstones
+        void removeAt(int i) {
+            int j = i;
+            while (true) {
+                j = (j + 1) & mask;
+                if (values[j] == EMPTY) {
+                    break;
+                }
+                int home = (int) mix(his[j] ^ los[j]) & mask;
+                boolean stays = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+                if (!stays) {
+                    his[i] = his[j];
+                    los[i] = los[j];
+                    values[i] = values[j];
+                    i = j;
+                }
+            }
+            values[i] = EMPTY;
+            --size;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Transition counts learned offline from past games, one {@link MarkovPredictor} table per order
+ * from 1 to {@link MarkovPredictor#MAX_ORDER}. The file is memory-mapped read-only, so a large model
+ * costs neither startup time nor heap, and counts are read from it directly.
+ * <p>
+ * Format, big-endian: {@link #MAGIC}, a version byte, the highest order as a byte, the number of
+ * games and of moves as longs, then the tables in order as longs.
+ */
+public final class TransitionModel {
+    public static final int MAGIC = 0x5250534D; // "RPSM"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 22;
+
+    private final ByteBuffer buffer;
+    private final int maxOrder;
+    private final int[] offsets; // byte offset of the table of each order
+    private final int[] sizes;
+
+    private TransitionModel(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a transition model");
+        }
+        if (buffer.get(4) != VERSION) {
+            throw new IOException("Unsupported transition model version " + buffer.get(4));
+        }
+        this.buffer = buffer;
+        this.maxOrder = buffer.get(5);
+        if (maxOrder < MarkovPredictor.MIN_ORDER || maxOrder > MarkovPredictor.MAX_ORDER) {
+            throw new IOException("Unsupported transition model order " + maxOrder);
+        }
+        this.offsets = new int[maxOrder + 1];
+        this.sizes = new int[maxOrder + 1];
+        int offset = HEADER_BYTES;
+        for (int order = 1; order <= maxOrder; order++) {
+            offsets[order] = offset;
+            sizes[order] = MarkovPredictor.tableSize(order);
+            offset += sizes[order] * Long.BYTES;
+        }
+        if (buffer.capacity() != offset) {
+            throw new IOException("Transition model of order " + maxOrder + " must have " + offset + " bytes: " + buffer.capacity());
+        }
+    }
+
+    /**
+     * Maps a model file read-only. The mapping stays valid after the channel is closed.
+     */
+    public static TransitionModel map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new TransitionModel(buffer);
+        }
+    }
+
+    /**
+     * Writes counts through a temporary file moved into place, so a server never maps half a model.
+     *
+     * @param tables one table per order from 1, laid out like {@link MarkovPredictor}'s
+     */
+    public static void write(Path file, long[][] tables, long games, long moves) throws IOException {
+        int maxOrder = tables.length;
+        int size = HEADER_BYTES;
+        for (int order = 1; order <= maxOrder; order++) {
+            if (tables[order - 1].length != MarkovPredictor.tableSize(order)) {
+                throw new IllegalArgumentException("Table of order " + order + " has " + tables[order - 1].length + " counts");
+            }
+            size += tables[order - 1].length * Long.BYTES;
+        }
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putInt(MAGIC).put((byte) VERSION).put((byte) maxOrder).putLong(games).putLong(moves);
+        for (long[] table : tables) {
+            for (long count : table) {
+                out.putLong(count);
+            }
+        }
+        Path absolute = file.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, out.array());
+            Files.move(temp, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public int maxOrder() {
+        return maxOrder;
+    }
+
+    public long games() {
+        return buffer.getLong(6);
+    }
+
+    public long moves() {
+        return buffer.getLong(14);
+    }
+
+    /**
+     * @param index {@code context * 3 + move} in the table of the order
+     */
+    public long count(int order, int index) {
+        if (order < 1 || order > maxOrder || index < 0 || index >= sizes[order]) {
+            throw new IndexOutOfBoundsException("No count " + index + " of order " + order);
+        }
+        return buffer.getLong(offsets[order] + index * Long.BYTES);
+    }
+}
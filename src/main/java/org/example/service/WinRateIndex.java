@@ -0,0 +1,79 @@
+package org.example.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Fenwick tree over quantized win rates. Answers "how many users have a win rate at or below mine"
+ * in O(log n) without touching the per-session map.
+ */
+class WinRateIndex {
+    static final int RESOLUTION = 1 << 16;
+
+    private final AtomicIntegerArray tree = new AtomicIntegerArray(RESOLUTION + 2);
+    private final AtomicInteger size = new AtomicInteger();
+
+    static int bucket(double winRate) {
+        if (Double.isNaN(winRate) || winRate >= 1.0) {
+            return RESOLUTION; // NaN sorts above everything, the same as Double.compare
+        }
+        return winRate <= 0.0 ? 0 : (int) (winRate * RESOLUTION);
+    }
+
+    void add(int bucket) {
+        update(bucket, 1);
+        size.incrementAndGet();
+    }
+
+    void remove(int bucket) {
+        update(bucket, -1);
+        size.decrementAndGet();
+    }
+
+    void replace(int oldBucket, int newBucket) {
+        if (oldBucket != newBucket) {
+            update(oldBucket, -1);
+            update(newBucket, 1);
+        }
+    }
+
+    int countAtOrBelow(int bucket) {
+        int sum = 0;
+        for (int i = bucket + 1; i > 0; i -= i & -i) {
+            sum += tree.get(i);
+        }
+        return sum;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * @return users per bucket, read without stopping writers so it may be slightly off while they run
+     */
+    int[] counts() {
+        int[] counts = new int[tree.length()];
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] = tree.get(i);
+        }
+        // undo the prefix sums, parents before children
+        for (int i = counts.length - 1; i > 0; i--) {
+            int parent = i + (i & -i);
+            if (parent < counts.length) {
+                counts[parent] -= counts[i];
+            }
+        }
+        int[] buckets = new int[RESOLUTION + 1];
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            buckets[bucket] = Math.max(0, counts[bucket + 1]);
+        }
+        return buckets;
+    }
+
+    private void update(int bucket, int delta) {
+        for (int i = bucket + 1; i < tree.length(); i += i & -i) {
+            tree.addAndGet(i, delta);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+
+/**
+ * Win rate histogram in the buckets of {@link WinRateIndex}, the form in which nodes exchange their users.
+ * Histograms of different nodes merge by adding the counts, so the merged one has the same fixed size
+ * however many nodes and users there are.
+ * <p>
+ * Encoded as a version byte, the bucket count, and the non-zero buckets as (bucket gap, count) varint pairs.
+ */
+final class WinRateSketch {
+    private static final int VERSION = 1;
+    private static final int BUCKETS = WinRateIndex.RESOLUTION + 1;
+
+    private WinRateSketch() {}
+
+    static byte[] encode(int[] counts) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            VarInts.write(out, counts.length);
+            int nonZero = 0;
+            for (int count : counts) {
+                if (count != 0) {
+                    ++nonZero;
+                }
+            }
+            VarInts.write(out, nonZero);
+            int previous = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    VarInts.write(out, i - previous);
+                    VarInts.write(out, counts[i]);
+                    previous = i;
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    static int[] decode(byte[] sketch) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(sketch));
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new InvalidObjectException("Unsupported win rate sketch version " + version);
+        }
+        int buckets = VarInts.read(in);
+        if (buckets != BUCKETS) {
+            throw new InvalidObjectException("Win rate sketch has " + buckets + " buckets instead of " + BUCKETS);
+        }
+        int[] counts = new int[BUCKETS];
+        int nonZero = VarInts.read(in);
+        int bucket = 0;
+        for (int i = 0; i < nonZero; i++) {
+            bucket += VarInts.read(in);
+            if (bucket >= BUCKETS) {
+                throw new InvalidObjectException("Win rate bucket out of range " + bucket);
+            }
+            counts[bucket] = VarInts.read(in);
+        }
+        return counts;
+    }
+
+    /**
+     * @return number of users at or below each bucket over all sketches, the last element is the total
+     */
+    static int[] mergeCumulative(Collection<int[]> sketches) {
+        int[] atOrBelow = new int[BUCKETS];
+        for (int[] counts : sketches) {
+            for (int i = 0; i < BUCKETS; i++) {
+                atOrBelow[i] += counts[i];
+            }
+        }
+        for (int i = 1; i < BUCKETS; i++) {
+            atOrBelow[i] += atOrBelow[i - 1];
+        }
+        return atOrBelow;
+    }
+}
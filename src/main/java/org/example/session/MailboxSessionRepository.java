@@ -0,0 +1,94 @@
+package org.example.session;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Saves and deletes sessions on their {@link SessionExecutor} mailbox, after the tasks queued before. Spring
+ * Session saves a session on the request thread when a request ends, which for {@code /play} is before or
+ * while its move runs; routed through the mailbox, the save runs on the thread that owns the session's game
+ * and never reads it while a move changes it.
+ * <p>
+ * Tasks that change the game load the session with {@link #findById} and save it themselves, so each one
+ * starts from what the previous one wrote, also with stores that hand every request its own copy, like the
+ * JDBC repository. The request's own save comes later and must not undo that: the JDBC repository only
+ * writes the attributes a request changed, and {@link WriteBehindSessionRepository} shares attribute
+ * instances between the copies it hands out. A session created by a request isn't stored before its first
+ * save; tasks of that session get the request's own instance instead.
+ */
+public class MailboxSessionRepository<S extends Session> implements SessionRepository<S>, DisposableBean {
+    private static final Log LOG = LogFactory.getLog(MailboxSessionRepository.class);
+
+    private final SessionRepository<S> delegate;
+    private final SessionExecutor executor;
+    private final Map<String, S> created = new ConcurrentHashMap<>();
+
+    public MailboxSessionRepository(SessionRepository<S> delegate, SessionExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public S createSession() {
+        S session = delegate.createSession();
+        created.put(session.getId(), session);
+        return session;
+    }
+
+    @Override
+    public void save(S session) {
+        String id = session.getId();
+        route(id, () -> {
+            delegate.save(session);
+            created.remove(id, session);
+        });
+    }
+
+    @Override
+    public S findById(String id) {
+        S session = executor.runsTaskOf(id) ? created.get(id) : null;
+        return session != null ? session : delegate.findById(id);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        route(id, () -> {
+            created.remove(id);
+            delegate.deleteById(id);
+        });
+    }
+
+    /**
+     * Closes the executor first, so the saves still queued reach the repository before it shuts down.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.close();
+    }
+
+    private void route(String id, Runnable action) {
+        if (executor.runsTaskOf(id)) {
+            action.run();
+            return;
+        }
+        CompletableFuture<Void> done = executor.submit(id, () -> {
+            action.run();
+            return null;
+        });
+        done.whenComplete((ignored, ex) -> {
+            if (ex instanceof RejectedExecutionException) {
+                action.run(); // closed, no worker touches the session any more
+            } else if (ex != null) {
+                LOG.error("Failed to store session " + id, ex);
+            }
+        });
+    }
+}
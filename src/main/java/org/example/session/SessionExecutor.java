@@ -0,0 +1,193 @@
+package org.example.session;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the work of each session one task at a time, in submission order, without locks. A task goes
+ * into the session's mailbox, a lock-free queue, and the submitter that finds the mailbox idle schedules
+ * one drain of it on a shared pool, so there is never more than one thread working for a session while
+ * different sessions run in parallel. Submitters get a future instead of waiting, so a busy session
+ * doesn't hold request threads.
+ * <p>
+ * Mailboxes exist only while they have work: an emptied mailbox closes itself and the next task of
+ * the session opens a new one.
+ */
+@Component
+public class SessionExecutor {
+    private static final Log LOG = LogFactory.getLog(SessionExecutor.class);
+
+    /** Tasks a drain runs before it lets other sessions have the thread. */
+    static final int DRAIN_BATCH = 64;
+
+    // session whose mailbox the current thread drains
+    private static final ThreadLocal<String> DRAINING = new ThreadLocal<>();
+
+    private final ExecutorService pool;
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    /**
+     * @param workers threads shared by all sessions, 0 for two per core
+     */
+    @Autowired
+    public SessionExecutor(@Value("${rps.sessions.workers:0}") int workers) {
+        AtomicInteger threads = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(workers > 0 ? workers : 2 * Runtime.getRuntime().availableProcessors(), r -> {
+            Thread thread = new Thread(r, "session-worker-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return completes with the result of the task, or exceptionally with what it threw or with a
+     *         {@link RejectedExecutionException} once the executor is closed
+     */
+    public <T> CompletableFuture<T> submit(String sessionId, Supplier<T> supplier) {
+        Task<T> task = new Task<>(supplier);
+        while (true) {
+            Mailbox mailbox = mailboxes.get(sessionId);
+            if (mailbox == null) {
+                Mailbox created = new Mailbox(sessionId);
+                mailbox = mailboxes.putIfAbsent(sessionId, created);
+                if (mailbox == null) {
+                    mailbox = created;
+                }
+            }
+            if (mailbox.offer(task)) {
+                return task.result;
+            }
+            mailboxes.remove(sessionId, mailbox); // closed after its last task, replace it
+        }
+    }
+
+    /**
+     * @return whether the calling thread is running a task of the session
+     */
+    boolean runsTaskOf(String sessionId) {
+        return sessionId.equals(DRAINING.get());
+    }
+
+    /**
+     * @return sessions with queued or running tasks
+     */
+    int activeSessions() {
+        return mailboxes.size();
+    }
+
+    /**
+     * Stops the threads once the drains already scheduled are done. Tasks that are left or submitted later
+     * fail with a {@link RejectedExecutionException}.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        pool.shutdown();
+        if (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
+            LOG.warn("Session tasks still running at shutdown");
+        }
+    }
+
+    private final class Mailbox {
+        private final String sessionId;
+        private final Queue<Task<?>> tasks = new ConcurrentLinkedQueue<>();
+        // tasks offered and not yet run, -1 once closed
+        private final AtomicInteger pending = new AtomicInteger();
+
+        Mailbox(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        boolean offer(Task<?> task) {
+            int before;
+            do {
+                before = pending.get();
+                if (before < 0) {
+                    return false;
+                }
+            } while (!pending.compareAndSet(before, before + 1));
+            tasks.add(task);
+            if (before == 0) {
+                schedule();
+            }
+            return true;
+        }
+
+        private void schedule() {
+            try {
+                pool.execute(this::drain);
+            } catch (RejectedExecutionException ex) {
+                rejectAll(ex);
+            }
+        }
+
+        // closes the mailbox and fails what it holds, no drain is scheduled or running
+        private void rejectAll(RejectedExecutionException ex) {
+            int count = pending.getAndSet(-1);
+            mailboxes.remove(sessionId, this);
+            for (int i = 0; i < count; i++) {
+                Task<?> task;
+                while ((task = tasks.poll()) == null) {
+                    Thread.yield(); // counted but not yet added by its submitter
+                }
+                task.result.completeExceptionally(ex);
+            }
+        }
+
+        private void drain() {
+            DRAINING.set(sessionId);
+            try {
+                for (int i = 0; i < DRAIN_BATCH; i++) {
+                    Task<?> task;
+                    while ((task = tasks.poll()) == null) {
+                        Thread.yield(); // counted but not yet added by its submitter
+                    }
+                    task.run();
+                    if (pending.decrementAndGet() == 0) {
+                        if (pending.compareAndSet(0, -1)) {
+                            mailboxes.remove(sessionId, this);
+                        }
+                        // otherwise a new task came in and its submitter scheduled the next drain
+                        return;
+                    }
+                }
+            } finally {
+                DRAINING.remove();
+            }
+            schedule();
+        }
+    }
+
+    private static final class Task<T> implements Runnable {
+        final Supplier<T> supplier;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Task(Supplier<T> supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        public void run() {
+            try {
+                result.complete(supplier.get());
+            } catch (Throwable ex) {
+                result.completeExceptionally(ex);
+            }
+        }
+    }
+}
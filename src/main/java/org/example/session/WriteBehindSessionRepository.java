@@ -0,0 +1,322 @@
+package org.example.session;
+
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.session.MapSession;
+import org.springframework.session.SessionRepository;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Session repository that serves sessions from memory and writes them to the Spring Session JDBC tables
+ * behind the requests. A save serializes the attributes on the saving thread, saves of a session between
+ * two flushes are coalesced into one write, and a flush writes all pending sessions in one transaction
+ * with batched statements. Flushes run on a schedule,
+ * as soon as {@code batchSize} sessions are pending and on shutdown.
+ * <p>
+ * The copies handed out by {@link #findById} share their attribute instances, so no thread may change an
+ * attribute while another saves it; {@link MailboxSessionRepository} runs the saves of a session on the
+ * thread that changes its game.
+ * <p>
+ * Sessions that have been idle for a while are dropped from memory once written and loaded again on
+ * their next request. Every node keeps its own copies, so several nodes need sticky sessions.
+ */
+public class WriteBehindSessionRepository implements SessionRepository<MapSession>, DisposableBean {
+    private static final Log LOG = LogFactory.getLog(WriteBehindSessionRepository.class);
+
+    private static final String LOAD_SESSION = "SELECT S.SESSION_ID, S.CREATION_TIME, S.LAST_ACCESS_TIME, " +
+            "S.MAX_INACTIVE_INTERVAL, SA.ATTRIBUTE_NAME, SA.ATTRIBUTE_BYTES FROM SPRING_SESSION S " +
+            "LEFT JOIN SPRING_SESSION_ATTRIBUTES SA ON S.PRIMARY_ID = SA.SESSION_PRIMARY_ID WHERE S.SESSION_ID = ?";
+    private static final String DELETE_SESSION = "DELETE FROM SPRING_SESSION WHERE SESSION_ID = ?";
+    private static final String CREATE_SESSION = "INSERT INTO SPRING_SESSION (PRIMARY_ID, SESSION_ID, CREATION_TIME, " +
+            "LAST_ACCESS_TIME, MAX_INACTIVE_INTERVAL, EXPIRY_TIME, PRINCIPAL_NAME) VALUES (?, ?, ?, ?, ?, ?, NULL)";
+    private static final String CREATE_ATTRIBUTE = "INSERT INTO SPRING_SESSION_ATTRIBUTES (SESSION_PRIMARY_ID, " +
+            "ATTRIBUTE_NAME, ATTRIBUTE_BYTES) VALUES (?, ?, ?)";
+    private static final String DELETE_EXPIRED = "DELETE FROM SPRING_SESSION WHERE EXPIRY_TIME < ?";
+
+    private static final TypeDescriptor OBJECT = TypeDescriptor.valueOf(Object.class);
+    private static final TypeDescriptor BYTES = TypeDescriptor.valueOf(byte[].class);
+
+    private final JdbcOperations jdbc;
+    private final TransactionOperations transactions;
+    private final ConversionService conversionService;
+    private final int batchSize;
+    private final Duration idleInMemory;
+
+    private final Map<String, MapSession> hot = new ConcurrentHashMap<>();
+    private final Map<String, PendingWrite> dirty = new ConcurrentHashMap<>();
+    private final Set<String> deleted = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "session-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Duration defaultMaxInactiveInterval = Duration.ofSeconds(MapSession.DEFAULT_MAX_INACTIVE_INTERVAL_SECONDS);
+    private Timer flushTimer;
+
+    /**
+     * @param conversionService converts attributes between Object and byte[], like the JDBC session repository's
+     * @param idleInMemory      how long a written session stays in memory after its last access
+     */
+    public WriteBehindSessionRepository(JdbcOperations jdbc, TransactionOperations transactions,
+                                        ConversionService conversionService, int batchSize, Duration idleInMemory) {
+        this.jdbc = jdbc;
+        this.transactions = transactions;
+        this.conversionService = conversionService;
+        this.batchSize = batchSize;
+        this.idleInMemory = idleInMemory;
+    }
+
+    public void setDefaultMaxInactiveInterval(Duration defaultMaxInactiveInterval) {
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+    }
+
+    public void setFlushTimer(Timer flushTimer) {
+        this.flushTimer = flushTimer;
+    }
+
+    /**
+     * Starts flushing pending sessions every {@code flushInterval} and deleting expired ones every {@code cleanupInterval}.
+     */
+    public void start(Duration flushInterval, Duration cleanupInterval) {
+        flusher.scheduleWithFixedDelay(this::flushQuietly,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        flusher.scheduleWithFixedDelay(this::cleanUpQuietly,
+                cleanupInterval.toMillis(), cleanupInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public MapSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(defaultMaxInactiveInterval);
+        return session;
+    }
+
+    @Override
+    public void save(MapSession session) {
+        if (!session.getId().equals(session.getOriginalId())) {
+            deleteById(session.getOriginalId());
+        }
+        MapSession copy = new MapSession(session);
+        deleted.remove(copy.getId());
+        hot.put(copy.getId(), copy);
+        dirty.put(copy.getId(), new PendingWrite(copy, conversionService));
+        if (dirty.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flushQuietly);
+            } catch (RejectedExecutionException ex) {
+                // shutting down, destroy() writes what is left
+            }
+        }
+    }
+
+    @Override
+    public MapSession findById(String id) {
+        MapSession session = hot.get(id);
+        if (session == null && !deleted.contains(id)) {
+            session = load(id);
+            if (session != null) {
+                MapSession loaded = hot.putIfAbsent(id, session);
+                if (loaded != null) {
+                    session = loaded; // a concurrent load won, share its attribute instances
+                }
+            }
+        }
+        if (session == null) {
+            return null;
+        }
+        if (session.isExpired()) {
+            deleteById(id);
+            return null;
+        }
+        return new MapSession(session);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        hot.remove(id);
+        dirty.remove(id);
+        deleted.add(id);
+    }
+
+    /**
+     * @return sessions and deletions waiting for the next flush
+     */
+    public int pendingWrites() {
+        return dirty.size() + deleted.size();
+    }
+
+    /**
+     * Writes every pending session and deletion in one transaction. Sessions that fail to be written
+     * stay pending unless they were saved again in the meantime.
+     */
+    public synchronized void flush() {
+        flushRequested.set(false);
+        List<String> deletedIds = new ArrayList<>();
+        for (Iterator<String> it = deleted.iterator(); it.hasNext(); ) {
+            deletedIds.add(it.next());
+            it.remove();
+        }
+        List<PendingWrite> sessions = new ArrayList<>();
+        for (String id : dirty.keySet()) {
+            PendingWrite session = dirty.remove(id);
+            if (session != null) {
+                sessions.add(session);
+            }
+        }
+        if (sessions.isEmpty() && deletedIds.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            List<Object[]> deletes = new ArrayList<>(sessions.size() + deletedIds.size());
+            List<Object[]> sessionRows = new ArrayList<>(sessions.size());
+            List<Object[]> attributeRows = new ArrayList<>();
+            for (String id : deletedIds) {
+                deletes.add(new Object[] {id});
+            }
+            for (PendingWrite session : sessions) {
+                String primaryId = UUID.randomUUID().toString();
+                deletes.add(new Object[] {session.id});
+                sessionRows.add(new Object[] {primaryId, session.id, session.creationTime, session.lastAccessTime,
+                        session.maxInactiveInterval, session.expiryTime});
+                for (int i = 0; i < session.names.length; i++) {
+                    attributeRows.add(new Object[] {primaryId, session.names[i], session.values[i]});
+                }
+            }
+            transactions.executeWithoutResult(status -> {
+                jdbc.batchUpdate(DELETE_SESSION, deletes);
+                if (!sessionRows.isEmpty()) {
+                    jdbc.batchUpdate(CREATE_SESSION, sessionRows);
+                }
+                if (!attributeRows.isEmpty()) {
+                    jdbc.batchUpdate(CREATE_ATTRIBUTE, attributeRows);
+                }
+            });
+        } catch (RuntimeException ex) {
+            for (PendingWrite session : sessions) {
+                dirty.putIfAbsent(session.id, session);
+            }
+            deleted.addAll(deletedIds);
+            throw ex;
+        } finally {
+            if (flushTimer != null) {
+                flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+        evictIdle();
+    }
+
+    /**
+     * Deletes expired sessions from memory and from the database.
+     */
+    public void cleanUpExpiredSessions() {
+        hot.values().removeIf(session -> session.isExpired() && !dirty.containsKey(session.getId()));
+        int count = jdbc.update(DELETE_EXPIRED, System.currentTimeMillis());
+        if (count > 0 && LOG.isDebugEnabled()) {
+            LOG.debug("Deleted " + count + " expired sessions");
+        }
+    }
+
+    @Override
+    public void destroy() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void evictIdle() {
+        Instant idleSince = Instant.now().minus(idleInMemory);
+        hot.values().removeIf(session -> session.getLastAccessedTime().isBefore(idleSince)
+                && !dirty.containsKey(session.getId()));
+    }
+
+    private MapSession load(String id) {
+        return jdbc.query(LOAD_SESSION, rs -> {
+            MapSession session = null;
+            while (rs.next()) {
+                if (session == null) {
+                    session = new MapSession(rs.getString("SESSION_ID"));
+                    session.setCreationTime(Instant.ofEpochMilli(rs.getLong("CREATION_TIME")));
+                    session.setLastAccessedTime(Instant.ofEpochMilli(rs.getLong("LAST_ACCESS_TIME")));
+                    session.setMaxInactiveInterval(Duration.ofSeconds(rs.getInt("MAX_INACTIVE_INTERVAL")));
+                }
+                String name = rs.getString("ATTRIBUTE_NAME");
+                if (name != null) {
+                    session.setAttribute(name, conversionService.convert(rs.getBytes("ATTRIBUTE_BYTES"), BYTES, OBJECT));
+                }
+            }
+            return session;
+        }, id);
+    }
+
+    private static long expiryTime(MapSession session) {
+        long maxInactiveMillis = session.getMaxInactiveInterval().toMillis();
+        return maxInactiveMillis < 0 ? Long.MAX_VALUE : session.getLastAccessedTime().toEpochMilli() + maxInactiveMillis;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            LOG.error("Failed to write sessions, will retry", ex);
+        }
+    }
+
+    private void cleanUpQuietly() {
+        try {
+            cleanUpExpiredSessions();
+        } catch (RuntimeException ex) {
+            LOG.error("Failed to delete expired sessions", ex);
+        }
+    }
+
+    /**
+     * A saved session as it will be written. The attributes are serialized by the thread that saves the
+     * session, so the flusher never reads the live objects, and the bytes are a consistent snapshot as long
+     * as that thread is the only one changing them.
+     */
+    private static final class PendingWrite {
+        final String id;
+        final long creationTime;
+        final long lastAccessTime;
+        final int maxInactiveInterval;
+        final long expiryTime;
+        final String[] names;
+        final byte[][] values;
+
+        PendingWrite(MapSession session, ConversionService conversionService) {
+            id = session.getId();
+            creationTime = session.getCreationTime().toEpochMilli();
+            lastAccessTime = session.getLastAccessedTime().toEpochMilli();
+            maxInactiveInterval = (int) session.getMaxInactiveInterval().getSeconds();
+            expiryTime = expiryTime(session);
+            names = session.getAttributeNames().toArray(new String[0]);
+            values = new byte[names.length][];
+            for (int i = 0; i < names.length; i++) {
+                values[i] = (byte[]) conversionService.convert(session.getAttribute(names[i]), OBJECT, BYTES);
+            }
+        }
+    }
+}
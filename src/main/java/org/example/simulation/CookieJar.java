@@ -0,0 +1,58 @@
+package org.example.simulation;
+
+import java.net.HttpURLConnection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cookies of one simulated player. Only names and values are kept, every cookie goes to every request,
+ * which is all a player of a single host needs.
+ */
+class CookieJar {
+    private final Map<String, String> cookies = new LinkedHashMap<>();
+
+    void addTo(HttpURLConnection connection) {
+        if (!cookies.isEmpty()) {
+            StringBuilder header = new StringBuilder();
+            for (Map.Entry<String, String> cookie : cookies.entrySet()) {
+                if (header.length() > 0) {
+                    header.append("; ");
+                }
+                header.append(cookie.getKey()).append('=').append(cookie.getValue());
+            }
+            connection.setRequestProperty("Cookie", header.toString());
+        }
+    }
+
+    void storeFrom(HttpURLConnection connection) {
+        for (Map.Entry<String, List<String>> header : connection.getHeaderFields().entrySet()) {
+            // header names are case-insensitive, some servers send Set-cookie
+            if ("Set-Cookie".equalsIgnoreCase(header.getKey())) {
+                for (String setCookie : header.getValue()) {
+                    store(setCookie);
+                }
+            }
+        }
+    }
+
+    void store(String setCookie) {
+        int end = setCookie.indexOf(';');
+        String pair = end < 0 ? setCookie : setCookie.substring(0, end);
+        int equals = pair.indexOf('=');
+        if (equals <= 0) {
+            return;
+        }
+        String name = pair.substring(0, equals).trim();
+        String value = pair.substring(equals + 1).trim();
+        if (value.isEmpty() || setCookie.toLowerCase().contains("max-age=0")) {
+            cookies.remove(name);
+        } else {
+            cookies.put(name, value);
+        }
+    }
+
+    String get(String name) {
+        return cookies.get(name);
+    }
+}
@@ -0,0 +1,197 @@
+package org.example.simulation;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.example.Application;
+import org.example.service.RPSResolver.Move;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Closed-loop load test of the HTTP API. Every simulated player has its own cookie jar and plays
+ * {@code gamesPerPlayer} games of {@code movesPerGame} moves through {@code /play/{move}}, each
+ * followed by {@code /stop}, waiting {@code thinkTimeMillis} after every response. Players are
+ * picked from the {@link Opponents} library and wait their turn for one of {@code connections}
+ * threads, so the number of requests in flight never exceeds the number of connections.
+ */
+public class LoadTest {
+    private static final String AI_MOVE = "\"aiMove\":\"";
+
+    private final URL base;
+    private final int players;
+    private final int gamesPerPlayer;
+    private final int movesPerGame;
+    private final long thinkTimeMillis;
+    private final int connections;
+    private final long seed;
+
+    private final Histogram play = new ConcurrentHistogram(3);
+    private final Histogram stop = new ConcurrentHistogram(3);
+    private final AtomicLong errors = new AtomicLong();
+
+    public LoadTest(URL base, int players, int gamesPerPlayer, int movesPerGame, long thinkTimeMillis,
+                    int connections, long seed) {
+        if (players < 1 || gamesPerPlayer < 1 || movesPerGame < 1 || connections < 1) {
+            throw new IllegalArgumentException("Players, games per player, moves per game and connections must be positive");
+        }
+        this.base = base;
+        this.players = players;
+        this.gamesPerPlayer = gamesPerPlayer;
+        this.movesPerGame = movesPerGame;
+        this.thinkTimeMillis = thinkTimeMillis;
+        this.connections = connections;
+        this.seed = seed;
+    }
+
+    public LoadTestReport run() throws InterruptedException {
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(connections);
+        CountDownLatch done = new CountDownLatch(players);
+        List<Function<Random, Opponent>> library = new ArrayList<>(Opponents.library().values());
+        Random rand = new Random(seed);
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < players; i++) {
+                Random playerRand = new Random(rand.nextLong());
+                Player player = new Player(library.get(i % library.size()).apply(playerRand), executor, done);
+                // spread the first requests over one think time instead of sending them all at once
+                executor.schedule(player, thinkTimeMillis == 0 ? 0 : (long) (playerRand.nextDouble() * thinkTimeMillis),
+                        TimeUnit.MILLISECONDS);
+            }
+            done.await();
+        } finally {
+            executor.shutdownNow();
+        }
+        return new LoadTestReport(play, stop, errors.get(), System.nanoTime() - start);
+    }
+
+    /**
+     * @return response body
+     * @throws IOException also for error responses, after reading them so the connection can be reused
+     */
+    static String request(URL url, String method, CookieJar cookies) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        cookies.addTo(connection);
+        int status = connection.getResponseCode();
+        cookies.storeFrom(connection);
+        String body = read(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+        if (status >= 400) {
+            throw new IOException(method + " " + url + " returned " + status);
+        }
+        return body;
+    }
+
+    private static String read(InputStream in) throws IOException {
+        if (in == null) {
+            return "";
+        }
+        try (InputStream body = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            for (int n; (n = body.read(buffer)) > 0; ) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    static Move aiMove(String response) {
+        int start = response.indexOf(AI_MOVE);
+        if (start < 0) {
+            return null;
+        }
+        start += AI_MOVE.length();
+        return Move.valueOf(response.substring(start, response.indexOf('"', start)));
+    }
+
+    private class Player implements Runnable {
+        private final Opponent opponent;
+        private final ScheduledExecutorService executor;
+        private final CountDownLatch done;
+        private final CookieJar cookies = new CookieJar();
+        private int gamesLeft = gamesPerPlayer;
+        private int movesLeft = movesPerGame;
+        private Move aiLast;
+
+        Player(Opponent opponent, ScheduledExecutorService executor, CountDownLatch done) {
+            this.opponent = opponent;
+            this.executor = executor;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (movesLeft > 0) {
+                    --movesLeft;
+                    long start = System.nanoTime();
+                    String response = request(new URL(base, "play/" + opponent.next(aiLast)), "POST", cookies);
+                    play.recordValue(System.nanoTime() - start);
+                    aiLast = aiMove(response);
+                } else {
+                    movesLeft = movesPerGame;
+                    aiLast = null;
+                    --gamesLeft;
+                    long start = System.nanoTime();
+                    request(new URL(base, "stop"), "PUT", cookies);
+                    stop.recordValue(System.nanoTime() - start);
+                }
+            } catch (IOException | RuntimeException ex) {
+                errors.incrementAndGet();
+            }
+            if (gamesLeft == 0) {
+                done.countDown();
+            } else {
+                executor.schedule(this, thinkTimeMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Usage: LoadTest [players] [games per player] [moves per game] [think time ms] [connections] [seed] [base url]
+     * <p>
+     * Without a base url the application is started on a free local port for the duration of the test.
+     */
+    public static void main(String[] args) throws Exception {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int gamesPerPlayer = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int movesPerGame = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        long thinkTimeMillis = args.length > 3 ? Long.parseLong(args[3]) : 100;
+        int connections = args.length > 4 ? Integer.parseInt(args[4]) : 64;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 42;
+        // keep-alive pool per host, only read when the first connection is opened
+        System.setProperty("http.maxConnections", String.valueOf(connections));
+
+        ConfigurableApplicationContext context = null;
+        URL base;
+        if (args.length > 6) {
+            base = new URL(args[6].endsWith("/") ? args[6] : args[6] + "/");
+        } else {
+            context = new SpringApplicationBuilder(Application.class).properties("server.port=0").run();
+            base = new URL("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/");
+        }
+        try {
+            System.out.print(new LoadTest(base, players, gamesPerPlayer, movesPerGame, thinkTimeMillis, connections, seed).run());
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+}
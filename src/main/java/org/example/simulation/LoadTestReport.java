@@ -0,0 +1,66 @@
+package org.example.simulation;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency histograms and counts of a load test run.
+ */
+public class LoadTestReport {
+    private final Histogram play;
+    private final Histogram stop;
+    private final long errors;
+    private final long nanos;
+
+    LoadTestReport(Histogram play, Histogram stop, long errors, long nanos) {
+        this.play = play;
+        this.stop = stop;
+        this.errors = errors;
+        this.nanos = nanos;
+    }
+
+    public long requests() {
+        return play.getTotalCount() + stop.getTotalCount();
+    }
+
+    public long errors() {
+        return errors;
+    }
+
+    public double requestsPerSecond() {
+        return requests() / (nanos / 1e9);
+    }
+
+    /**
+     * @return histogram of /play latencies in nanoseconds
+     */
+    public Histogram play() {
+        return play;
+    }
+
+    /**
+     * @return histogram of /stop latencies in nanoseconds
+     */
+    public Histogram stop() {
+        return stop;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format("%-8s %10s %10s %10s %10s %10s %10s%n",
+                "ms", "requests", "mean", "p50", "p99", "p99.9", "max"));
+        row(sb, "/play", play);
+        row(sb, "/stop", stop);
+        sb.append(String.format("%d requests, %d errors in %.2f s, %.0f requests/s%n",
+                requests(), errors, nanos / 1e9, requestsPerSecond()));
+        return sb.toString();
+    }
+
+    private static void row(StringBuilder sb, String name, Histogram histogram) {
+        sb.append(String.format("%-8s %10d %10.3f %10.3f %10.3f %10.3f %10.3f%n", name, histogram.getTotalCount(),
+                histogram.getMean() / 1e6,
+                histogram.getValueAtPercentile(50) / 1e6,
+                histogram.getValueAtPercentile(99) / 1e6,
+                histogram.getValueAtPercentile(99.9) / 1e6,
+                histogram.getMaxValue() / 1e6));
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.simulation;
+
+import org.example.service.RPSResolver.Move;
+
+/**
+ * Scripted player for offline games. A new instance plays each game.
+ */
+public interface Opponent {
+
+    /**
+     * @param aiLast the AI's previous move, null in the first round
+     */
+    Move next(Move aiLast);
+}
@@ -0,0 +1,84 @@
+package org.example.simulation;
+
+import org.example.service.RPSResolver.Move;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.example.service.RPSResolver.Move.*;
+
+/**
+ * Library of human-like opponents, keyed by name.
+ */
+public final class Opponents {
+    private static final Move[] MOVES = Move.values();
+
+    private Opponents() {}
+
+    public static Map<String, Function<Random, Opponent>> library() {
+        Map<String, Function<Random, Opponent>> library = new LinkedHashMap<>();
+        library.put("uniform-random", rand -> biased(rand, 1, 1, 1));
+        library.put("rock-biased", rand -> biased(rand, 2, 1, 1));
+        library.put("paper-scissors-biased", rand -> biased(rand, 1, 3, 4));
+        library.put("cycle-3", rand -> cycle(ROCK, PAPER, SCISSORS));
+        library.put("cycle-5", rand -> cycle(ROCK, ROCK, PAPER, SCISSORS, PAPER));
+        library.put("cycle-8", rand -> cycle(ROCK, ROCK, PAPER, ROCK, ROCK, SCISSORS, PAPER, SCISSORS));
+        library.put("win-stay-lose-shift", WinStayLoseShift::new);
+        library.put("beat-last", rand -> aiLast -> aiLast == null ? MOVES[rand.nextInt(MOVES.length)] : aiLast.losesTo);
+        return library;
+    }
+
+    /**
+     * Plays {@link Move} values at random with the given relative weights, in declaration order.
+     */
+    static Opponent biased(Random rand, int... weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int bound = total;
+        return aiLast -> {
+            int r = rand.nextInt(bound);
+            int i = 0;
+            while (r >= weights[i]) {
+                r -= weights[i++];
+            }
+            return MOVES[i];
+        };
+    }
+
+    static Opponent cycle(Move... pattern) {
+        return new Opponent() {
+            private int i;
+
+            @Override
+            public Move next(Move aiLast) {
+                return pattern[i++ % pattern.length];
+            }
+        };
+    }
+
+    /**
+     * Repeats a winning move, switches to what would have beaten the AI after a loss and picks at random on a tie.
+     */
+    static class WinStayLoseShift implements Opponent {
+        private final Random rand;
+        private Move last;
+
+        WinStayLoseShift(Random rand) {
+            this.rand = rand;
+        }
+
+        @Override
+        public Move next(Move aiLast) {
+            if (last == null || aiLast == null || last == aiLast) {
+                last = MOVES[rand.nextInt(MOVES.length)];
+            } else if (last.losesTo == aiLast) {
+                last = aiLast.losesTo;
+            }
+            return last;
+        }
+    }
+}
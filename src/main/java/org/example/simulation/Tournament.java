@@ -0,0 +1,125 @@
+package org.example.simulation;
+
+import org.example.service.RPSResolver;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Spring-free runner that plays every strategy against every opponent across a fork-join pool.
+ * Each game is seeded from the tournament seed and its index, so results don't depend on scheduling.
+ */
+public class Tournament {
+    private static final int GAMES_PER_TASK = 16;
+    private static final int DECISIONS = RPSResolver.Decision.values().length;
+
+    private final List<String> strategyNames;
+    private final List<Function<Random, RPSResolver>> strategies;
+    private final List<String> opponentNames;
+    private final List<Function<Random, Opponent>> opponents;
+    private final int gamesPerPairing;
+    private final int roundsPerGame;
+    private final long seed;
+
+    public Tournament(Map<String, Function<Random, RPSResolver>> strategies,
+                      Map<String, Function<Random, Opponent>> opponents,
+                      int gamesPerPairing, int roundsPerGame, long seed) {
+        this.strategyNames = new ArrayList<>(strategies.keySet());
+        this.strategies = new ArrayList<>(strategies.values());
+        this.opponentNames = new ArrayList<>(opponents.keySet());
+        this.opponents = new ArrayList<>(opponents.values());
+        this.gamesPerPairing = gamesPerPairing;
+        this.roundsPerGame = roundsPerGame;
+        this.seed = seed;
+    }
+
+    public static Map<String, Function<Random, RPSResolver>> markovStrategies() {
+        Map<String, Function<Random, RPSResolver>> strategies = new LinkedHashMap<>();
+        for (int order = 1; order <= 6; order++) {
+            int markovOrder = order;
+            strategies.put("markov-" + order, rand -> new RPSResolver(markovOrder, rand, null));
+        }
+        return strategies;
+    }
+
+    public TournamentReport run(ForkJoinPool pool) {
+        int games = strategies.size() * opponents.size() * gamesPerPairing;
+        long start = System.nanoTime();
+        long[] tally = pool.invoke(new Games(0, games));
+        long nanos = System.nanoTime() - start;
+        return new TournamentReport(strategyNames, opponentNames, tally, (long) games * roundsPerGame, nanos);
+    }
+
+    private void play(int game, long[] tally) {
+        int pairing = game / gamesPerPairing;
+        long gameSeed = mix(seed + game);
+        RPSResolver ai = strategies.get(pairing / opponents.size()).apply(new Random(gameSeed));
+        Opponent opponent = opponents.get(pairing % opponents.size()).apply(new Random(mix(gameSeed)));
+
+        RPSResolver.Move aiLast = null;
+        for (int round = 0; round < roundsPerGame; round++) {
+            RPSResolver.Response res = ai.play(opponent.next(aiLast));
+            aiLast = RPSResolver.Move.valueOf(res.getAiMove());
+            ++tally[pairing * DECISIONS + res.getResult().ordinal()];
+        }
+    }
+
+    // SplitMix64 finalizer, spreads consecutive game numbers over unrelated seeds
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private class Games extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        Games(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                long[] tally = new long[strategies.size() * opponents.size() * DECISIONS];
+                for (int game = from; game < to; game++) {
+                    play(game, tally);
+                }
+                return tally;
+            }
+            int middle = (from + to) >>> 1;
+            Games left = new Games(from, middle);
+            left.fork();
+            long[] tally = new Games(middle, to).compute();
+            long[] leftTally = left.join();
+            for (int i = 0; i < tally.length; i++) {
+                tally[i] += leftTally[i];
+            }
+            return tally;
+        }
+    }
+
+    /**
+     * Usage: Tournament [games per pairing] [rounds per game] [seed] [threads]
+     */
+    public static void main(String[] args) {
+        int gamesPerPairing = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int roundsPerGame = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        Tournament tournament = new Tournament(markovStrategies(), Opponents.library(), gamesPerPairing, roundsPerGame, seed);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            System.out.print(tournament.run(pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.simulation;
+
+import org.example.service.RPSResolver.Decision;
+
+import java.util.List;
+
+/**
+ * Round counts per strategy, opponent and result. Everything but the timing is reproducible from the seed.
+ */
+public class TournamentReport {
+    private static final int DECISIONS = Decision.values().length;
+
+    private final List<String> strategies;
+    private final List<String> opponents;
+    private final long[] tally;
+    private final long rounds;
+    private final long nanos;
+
+    TournamentReport(List<String> strategies, List<String> opponents, long[] tally, long rounds, long nanos) {
+        this.strategies = strategies;
+        this.opponents = opponents;
+        this.tally = tally;
+        this.rounds = rounds;
+        this.nanos = nanos;
+    }
+
+    /**
+     * @param result from the human's side, {@link Decision#DEFEAT} is a round won by the AI
+     */
+    public long rounds(String strategy, String opponent, Decision result) {
+        int pairing = strategies.indexOf(strategy) * opponents.size() + opponents.indexOf(opponent);
+        return tally[pairing * DECISIONS + result.ordinal()];
+    }
+
+    public double aiWinRate(String strategy, String opponent) {
+        long won = rounds(strategy, opponent, Decision.DEFEAT);
+        return won / (double) (won + rounds(strategy, opponent, Decision.VICTORY) + rounds(strategy, opponent, Decision.TIE));
+    }
+
+    public double roundsPerSecond() {
+        return rounds / (nanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format("%-12s", "AI win rate"));
+        for (String opponent : opponents) {
+            sb.append(String.format(" %22s", opponent));
+        }
+        sb.append('\n');
+        for (String strategy : strategies) {
+            sb.append(String.format("%-12s", strategy));
+            for (String opponent : opponents) {
+                sb.append(String.format(" %22.4f", aiWinRate(strategy, opponent)));
+            }
+            sb.append('\n');
+        }
+        sb.append(String.format("%d rounds in %.2f s, %.0f rounds/s%n", rounds, nanos / 1e9, roundsPerSecond()));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,15 @@
+CREATE TABLE IF NOT EXISTS GAME_RESULT (
+	ID BIGINT NOT NULL AUTO_INCREMENT,
+	SESSION_ID CHAR(36),
+	FINISHED_AT BIGINT NOT NULL,
+	VICTORIES INT NOT NULL,
+	DEFEATS INT NOT NULL,
+	TIES INT NOT NULL,
+	FAVOURITE_MOVE VARCHAR(8),
+	WIN_RATE DOUBLE NOT NULL,
+	BETTER_THAN_OTHERS DOUBLE NOT NULL,
+	HISTORY LONGTEXT,
+	CONSTRAINT GAME_RESULT_PK PRIMARY KEY (ID)
+);
+
+CREATE INDEX GAME_RESULT_IX1 ON GAME_RESULT (SESSION_ID);
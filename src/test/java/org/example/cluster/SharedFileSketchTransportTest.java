@@ -0,0 +1,71 @@
+package org.example.cluster;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class SharedFileSketchTransportTest {
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("sketches");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void fetchOthersTest() throws IOException {
+        SharedFileSketchTransport first = new SharedFileSketchTransport(directory, Duration.ofMinutes(5));
+        SharedFileSketchTransport second = new SharedFileSketchTransport(directory, Duration.ofMinutes(5));
+
+        first.publish("first", new byte[] {1, 2});
+        second.publish("second", new byte[] {3});
+        first.publish("first", new byte[] {4});
+
+        Map<String, byte[]> others = second.fetchOthers("second");
+        assertEquals(1, others.size());
+        assertArrayEquals(new byte[] {4}, others.get("first"));
+        assertArrayEquals(new byte[] {3}, first.fetchOthers("first").get("second"));
+        assertEquals(2, first.fetchOthers("third").size());
+    }
+
+    @Test
+    public void staleSketchTest() throws IOException {
+        SharedFileSketchTransport transport = new SharedFileSketchTransport(directory, Duration.ofMinutes(5));
+        transport.publish("gone", new byte[] {1});
+        transport.publish("live", new byte[] {2});
+        Files.setLastModifiedTime(directory.resolve("gone.sketch"),
+                FileTime.fromMillis(System.currentTimeMillis() - Duration.ofMinutes(10).toMillis()));
+
+        Map<String, byte[]> others = transport.fetchOthers("me");
+
+        assertEquals(1, others.size());
+        assertTrue(others.containsKey("live"));
+    }
+
+    @Test
+    public void invalidNodeIdTest() throws IOException {
+        SharedFileSketchTransport transport = new SharedFileSketchTransport(directory, Duration.ofMinutes(5));
+        assertThrows(IllegalArgumentException.class, () -> transport.publish("../escape", new byte[] {1}));
+    }
+}
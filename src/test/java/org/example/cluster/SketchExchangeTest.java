@@ -0,0 +1,91 @@
+package org.example.cluster;
+
+import org.example.service.OverallStatsKeeper;
+import org.example.service.RPSResolver;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SketchExchangeTest {
+
+    private static final String[] MOVES = {"ROCK", "PAPER", "SCISSORS"};
+
+    // plays a short game per user, counting it on its node and on a keeper that sees every user
+    private static void play(OverallStatsKeeper node, OverallStatsKeeper everyone, String sessionId, Random rand) {
+        RPSResolver resolver = new RPSResolver(2, new Random(rand.nextLong()), null);
+        RPSResolver.Response res = null;
+        for (int i = 0; i < 5 + rand.nextInt(20); i++) {
+            res = resolver.play(MOVES[rand.nextInt(MOVES.length)]);
+        }
+        node.count(sessionId, res);
+        everyone.count(sessionId, res);
+    }
+
+    @Test
+    public void globalPlaceTest() {
+        Random rand = new Random(42);
+        InProcessSketchTransport transport = new InProcessSketchTransport(Duration.ofMinutes(5));
+        OverallStatsKeeper[] nodes = {new OverallStatsKeeper(), new OverallStatsKeeper(), new OverallStatsKeeper()};
+        SketchExchange[] exchanges = new SketchExchange[nodes.length];
+        OverallStatsKeeper everyone = new OverallStatsKeeper();
+        for (int i = 0; i < nodes.length; i++) {
+            exchanges[i] = new SketchExchange(nodes[i], transport, "node-" + i);
+        }
+        for (int user = 0; user < 300; user++) {
+            play(nodes[user % nodes.length], everyone, "user-" + user, rand);
+        }
+
+        for (SketchExchange exchange : exchanges) {
+            exchange.exchange();
+        }
+        for (SketchExchange exchange : exchanges) {
+            exchange.exchange();
+        }
+
+        for (int user = 0; user < 300; user++) {
+            String sessionId = "user-" + user;
+            assertEquals(everyone.getUserPlace(sessionId), nodes[user % nodes.length].getUserPlace(sessionId), 0.00000001);
+        }
+    }
+
+    @Test
+    public void forgottenUserTest() {
+        Random rand = new Random(7);
+        InProcessSketchTransport transport = new InProcessSketchTransport(Duration.ofMinutes(5));
+        OverallStatsKeeper first = new OverallStatsKeeper();
+        OverallStatsKeeper second = new OverallStatsKeeper();
+        OverallStatsKeeper everyone = new OverallStatsKeeper();
+        play(first, everyone, "1111", rand);
+        play(second, everyone, "2222", rand);
+        play(second, everyone, "3333", rand);
+        SketchExchange firstExchange = new SketchExchange(first, transport, "first");
+        SketchExchange secondExchange = new SketchExchange(second, transport, "second");
+
+        second.forget("2222");
+        everyone.forget("2222");
+        secondExchange.exchange();
+        firstExchange.exchange();
+
+        assertEquals(everyone.getUserPlace("1111"), first.getUserPlace("1111"), 0.00000001);
+        assertEquals(0.0, first.getUserPlace("2222"), 0.00000001);
+    }
+
+    @Test
+    public void staleNodeTest() {
+        Random rand = new Random(1);
+        InProcessSketchTransport transport = new InProcessSketchTransport(Duration.ofMillis(-1));
+        OverallStatsKeeper first = new OverallStatsKeeper();
+        OverallStatsKeeper second = new OverallStatsKeeper();
+        OverallStatsKeeper alone = new OverallStatsKeeper();
+        play(first, alone, "1111", rand);
+        play(second, new OverallStatsKeeper(), "2222", rand);
+
+        new SketchExchange(second, transport, "second").exchange();
+        new SketchExchange(first, transport, "first").exchange();
+
+        assertEquals(1.0, first.getUserPlace("1111"), 0.00000001);
+    }
+}
@@ -0,0 +1,156 @@
+package org.example.controller;
+
+import com.google.gson.Gson;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.service.GameMetrics;
+import org.example.service.OverallStatsKeeper;
+import org.example.service.PopulationModel;
+import org.example.service.RPSResolver;
+import org.example.session.MailboxSessionRepository;
+import org.example.session.SessionExecutor;
+import org.example.session.WriteBehindSessionRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.session.Session;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+import org.springframework.session.web.http.HeaderHttpSessionIdResolver;
+import org.springframework.session.web.http.SessionRepositoryFilter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class GameControllerTest {
+    private static final String TOKEN = "X-Auth-Token";
+    private static final int REQUESTS = 8;
+    private static final int MOVES_PER_REQUEST = 25;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate transactions;
+    private GenericConversionService conversionService;
+    private SessionExecutor executor;
+
+    @Before
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("org/springframework/session/jdbc/schema-h2.sql")
+                .build();
+        jdbc = new JdbcTemplate(database);
+        transactions = new TransactionTemplate(new DataSourceTransactionManager(database));
+        conversionService = new GenericConversionService();
+        conversionService.addConverter(Object.class, byte[].class, new SerializingConverter());
+        conversionService.addConverter(byte[].class, Object.class, new DeserializingConverter());
+        executor = new SessionExecutor(4);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        executor.close();
+        database.shutdown();
+    }
+
+    @Test
+    public void concurrentPlaysWithJdbcRepositoryTest() throws Exception {
+        JdbcIndexedSessionRepository repository = new JdbcIndexedSessionRepository(jdbc, transactions);
+
+        String sessionId = playConcurrently(new MailboxSessionRepository<>(repository, executor));
+
+        assertEquals(1 + REQUESTS * MOVES_PER_REQUEST, lastGameLength(repository.findById(sessionId)));
+    }
+
+    @Test
+    public void concurrentPlaysWithWriteBehindRepositoryTest() throws Exception {
+        WriteBehindSessionRepository repository = writeBehind();
+
+        String sessionId = playConcurrently(new MailboxSessionRepository<>(repository, executor));
+        repository.flush();
+
+        // the blob written while other requests played is read back whole
+        assertEquals(1 + REQUESTS * MOVES_PER_REQUEST, lastGameLength(writeBehind().findById(sessionId)));
+    }
+
+    private WriteBehindSessionRepository writeBehind() {
+        return new WriteBehindSessionRepository(jdbc, transactions, conversionService, 100, Duration.ofMinutes(10));
+    }
+
+    /**
+     * Plays one move to open a session, then {@link #REQUESTS} clients play on it at once and the game is stopped.
+     *
+     * @return the session id
+     */
+    private <S extends Session> String playConcurrently(MailboxSessionRepository<S> sessions) throws Exception {
+        OverallStatsKeeper statsKeeper = new OverallStatsKeeper();
+        GameController controller = new GameController(sessions, statsKeeper,
+                new GameMetrics(new SimpleMeterRegistry(), statsKeeper), null, executor, null,
+                new PopulationModel(2), null, 2);
+        SessionRepositoryFilter<S> filter = new SessionRepositoryFilter<>(sessions);
+        filter.setHttpSessionIdResolver(HeaderHttpSessionIdResolver.xAuthToken());
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(controller).addFilters(filter).build();
+
+        String sessionId = perform(mvc, post("/play/ROCK")).getResponse().getHeader(TOKEN);
+        assertNotNull(sessionId);
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> clients = new ArrayList<>();
+        for (int c = 0; c < REQUESTS; c++) {
+            Thread client = new Thread(() -> {
+                try {
+                    for (int i = 0; i < MOVES_PER_REQUEST; i++) {
+                        perform(mvc, post("/play/PAPER").header(TOKEN, sessionId));
+                    }
+                } catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                }
+            });
+            clients.add(client);
+            client.start();
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+        assertNull(failure.get());
+
+        String stats = perform(mvc, put("/stop").header(TOKEN, sessionId)).getResponse().getContentAsString();
+        Map<?, ?> json = new Gson().fromJson(stats, Map.class);
+        double rounds = (Double) json.get("victories") + (Double) json.get("defeats") + (Double) json.get("ties");
+        assertEquals(1 + REQUESTS * MOVES_PER_REQUEST, (int) rounds);
+        return sessionId;
+    }
+
+    private static MvcResult perform(MockMvc mvc, MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult started = mvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+        return mvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+    }
+
+    private static int lastGameLength(Session session) throws Exception {
+        RPSResolver resolver = session.getAttribute(GameSocketHandler.RESOLVER_ATTRIBUTE);
+        ByteArrayOutputStream letters = new ByteArrayOutputStream();
+        resolver.history(true).writeTo(letters);
+        return letters.size();
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.service.GameMetrics;
+import org.example.service.OverallStatsKeeper;
+import org.example.service.PopulationModel;
+import org.example.service.RPSResolver;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.session.MapSession;
+import org.springframework.session.MapSessionRepository;
+import org.springframework.session.Session;
+
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+public class GameSocketHandlerTest {
+
+    private MapSessionRepository sessions;
+    private OverallStatsKeeper statsKeeper;
+    private GameSocketHandler handler;
+    private String sessionId;
+
+    @Before
+    public void setUp() {
+        sessions = new MapSessionRepository(new HashMap<String, Session>());
+        statsKeeper = new OverallStatsKeeper();
+        handler = new GameSocketHandler(sessions, statsKeeper, new GameMetrics(new SimpleMeterRegistry(), statsKeeper),
+                new PopulationModel(2), null, null, null, 2);
+        MapSession session = sessions.createSession();
+        sessions.save(session);
+        sessionId = session.getId();
+    }
+
+    @Test
+    public void playTest() {
+        GameSocketHandler.Game game = handler.open(sessionId, "socket");
+
+        String reply = handler.play(game, "RPSr");
+
+        assertEquals(8, reply.length());
+        for (int i = 0; i < reply.length(); i += 2) {
+            assertTrue("RPS".indexOf(reply.charAt(i)) >= 0);
+            assertTrue("VDT".indexOf(reply.charAt(i + 1)) >= 0);
+        }
+    }
+
+    @Test
+    public void resultLettersTest() {
+        GameSocketHandler.Game game = handler.open(sessionId, "socket");
+
+        String reply = handler.play(game, "R");
+
+        char expected = reply.charAt(0) == 'R' ? 'T' : reply.charAt(0) == 'P' ? 'D' : 'V';
+        assertEquals(expected, reply.charAt(1));
+    }
+
+    @Test
+    public void invalidFrameIsNotPlayedTest() {
+        GameSocketHandler.Game game = handler.open(sessionId, "socket");
+
+        assertThrows(IllegalArgumentException.class, () -> handler.play(game, "RRX"));
+        assertThrows(IllegalArgumentException.class, () -> handler.play(game, ""));
+        assertTrue(handler.stop(game).contains("\"victories\":0,\"defeats\":0,\"ties\":0"));
+    }
+
+    @Test
+    public void persistedOnlyWhenAskedTest() {
+        GameSocketHandler.Game game = handler.open(sessionId, "socket");
+        handler.play(game, "RRRR");
+
+        assertNull(sessions.findById(sessionId).getAttribute(GameSocketHandler.RESOLVER_ATTRIBUTE));
+
+        handler.persist(game);
+
+        RPSResolver saved = sessions.findById(sessionId).getAttribute(GameSocketHandler.RESOLVER_ATTRIBUTE);
+        assertSame(game.resolver, saved);
+    }
+
+    @Test
+    public void stopPersistsTest() {
+        GameSocketHandler.Game game = handler.open(sessionId, "socket");
+        handler.play(game, "PPP");
+
+        String stats = handler.stop(game);
+
+        assertTrue(stats.contains("\"favouriteMove\":\"PAPER\""));
+        assertNotNull(sessions.findById(sessionId).getAttribute(GameSocketHandler.RESOLVER_ATTRIBUTE));
+    }
+
+    @Test
+    public void resumesSessionGameTest() {
+        RPSResolver resolver = new RPSResolver();
+        resolver.play("ROCK");
+        MapSession session = sessions.findById(sessionId);
+        session.setAttribute(GameSocketHandler.RESOLVER_ATTRIBUTE, resolver);
+        sessions.save(session);
+
+        assertSame(resolver, handler.open(sessionId, "socket").resolver);
+        assertNotSame(resolver, handler.open("unknown", "socket").resolver);
+    }
+}
@@ -0,0 +1,169 @@
+package org.example.eventlog;
+
+import org.example.service.RPSResolver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class MoveEventLogTest {
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("move-events");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private static List<long[]> readAll(Path directory) throws IOException {
+        List<long[]> events = new ArrayList<>();
+        for (Path segment : MoveEventLog.segments(directory)) {
+            MoveEventLog.read(segment, new MoveEventLog.Visitor() {
+                @Override
+                public void move(long gameId, long timeMillis, int round, int playerMove, int aiMove, int result) {
+                    events.add(new long[] {MoveEventLog.MOVE, gameId, round, playerMove, aiMove, result});
+                }
+
+                @Override
+                public void gameOver(long gameId, long timeMillis, int victories, int defeats, int ties) {
+                    events.add(new long[] {MoveEventLog.GAME_OVER, gameId, victories, defeats, ties});
+                }
+            });
+        }
+        return events;
+    }
+
+    @Test
+    public void roundTripTest() throws Exception {
+        MoveEventLog log = new MoveEventLog(directory.toString(), 16, 1 << 20, 4);
+        log.start();
+        log.move(-7, 1, 0, 2, 1);
+        log.move(-7, 2, 2, 2, 0);
+        log.gameOver(-7, 3, Integer.MAX_VALUE, 0);
+        log.close();
+
+        List<long[]> events = readAll(directory);
+
+        assertEquals(3, events.size());
+        assertArrayEquals(new long[] {MoveEventLog.MOVE, -7, 1, 0, 2, 1}, events.get(0));
+        assertArrayEquals(new long[] {MoveEventLog.MOVE, -7, 2, 2, 2, 0}, events.get(1));
+        assertArrayEquals(new long[] {MoveEventLog.GAME_OVER, -7, 3, Integer.MAX_VALUE, 0}, events.get(2));
+        assertEquals(0, log.dropped());
+    }
+
+    @Test
+    public void concurrentPublishersTest() throws Exception {
+        MoveEventLog log = new MoveEventLog(directory.toString(), 1 << 16, 1 << 20, 100);
+        log.start();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long gameId = t;
+            threads[t] = new Thread(() -> {
+                for (int round = 1; round <= 10_000; round++) {
+                    log.move(gameId, round, round % 3, 0, 0);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        log.close();
+
+        int[] lastRound = new int[threads.length];
+        long written = 0;
+        for (long[] event : readAll(directory)) {
+            int gameId = (int) event[1];
+            assertTrue(event[2] > lastRound[gameId]);
+            assertEquals(event[2] % 3, event[3]);
+            lastRound[gameId] = (int) event[2];
+            ++written;
+        }
+        assertEquals(40_000, written + log.dropped());
+    }
+
+    @Test
+    public void rotationTest() throws Exception {
+        MoveEventLog log = new MoveEventLog(directory.toString(), 1 << 16, 1000, 3);
+        log.start();
+        for (int round = 1; round <= 1000; round++) {
+            log.move(1, round, 0, 0, 0);
+            if (round % 100 == 0) {
+                Thread.sleep(5); // let the writer drain into several segments
+            }
+        }
+        log.close();
+
+        List<Path> segments = MoveEventLog.segments(directory);
+        assertEquals(3, segments.size());
+        for (Path segment : segments) {
+            assertTrue(Files.size(segment) <= 1000);
+        }
+        List<long[]> events = readAll(directory);
+        assertEquals(1000, events.get(events.size() - 1)[2]);
+    }
+
+    @Test
+    public void droppedWhenNotRunningTest() throws Exception {
+        MoveEventLog log = new MoveEventLog(directory.toString(), 16, 1 << 20, 4);
+        log.move(1, 1, 0, 0, 0);
+        assertEquals(1, log.dropped());
+    }
+
+    @Test
+    public void resolverEventsTest() throws Exception {
+        MoveEventLog log = new MoveEventLog(directory.toString(), 1024, 1 << 20, 4);
+        log.start();
+        RPSResolver resolver = new RPSResolver(2, null, log);
+        resolver.play("ROCK");
+        resolver.play("PAPER");
+        RPSResolver restored = copy(resolver);
+        restored.play("SCISSORS");
+        RPSResolver.DetailedStats stats = restored.stop();
+        restored.play("ROCK");
+        log.close();
+
+        List<long[]> events = readAll(directory);
+
+        assertEquals(5, events.size());
+        long gameId = events.get(0)[1];
+        for (int round = 1; round <= 3; round++) {
+            assertEquals(MoveEventLog.MOVE, events.get(round - 1)[0]);
+            assertEquals(gameId, events.get(round - 1)[1]);
+            assertEquals(round, events.get(round - 1)[2]);
+        }
+        assertEquals(RPSResolver.Move.SCISSORS.ordinal(), events.get(2)[3]);
+        assertArrayEquals(new long[] {MoveEventLog.GAME_OVER, gameId, stats.getVictories(), stats.getDefeats(), stats.getTies()},
+                events.get(3));
+        assertNotEquals(gameId, events.get(4)[1]);
+        assertEquals(1, events.get(4)[2]);
+    }
+
+    private static RPSResolver copy(RPSResolver resolver) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(resolver);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (RPSResolver) in.readObject();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.results;
+
+import org.example.service.RPSResolver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class GameResultWriterTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate transactions;
+
+    @Before
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("org/example/results/schema.sql")
+                .build();
+        jdbc = new JdbcTemplate(database);
+        transactions = new TransactionTemplate(new DataSourceTransactionManager(database));
+    }
+
+    @After
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    private GameResultWriter writer(int capacity, GameResultWriter.OverflowPolicy policy) {
+        return new GameResultWriter(jdbc, transactions, capacity, 2, policy, Duration.ofMillis(20));
+    }
+
+    private int storedResults() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM GAME_RESULT", Integer.class);
+    }
+
+    private static RPSResolver.DetailedStats stats() {
+        RPSResolver resolver = new RPSResolver();
+        resolver.playAll(Arrays.asList("ROCK", "ROCK", "PAPER"));
+        return resolver.stop();
+    }
+
+    @Test
+    public void resultsAreWrittenInBatchesTest() throws InterruptedException {
+        GameResultWriter writer = writer(100, GameResultWriter.OverflowPolicy.DROP);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(writer.record("session-" + i, stats()));
+        }
+        assertEquals(0, storedResults());
+
+        writer.start();
+        writer.destroy();
+
+        assertEquals(5, storedResults());
+        assertEquals(5, writer.written());
+        assertEquals(0, writer.pending());
+        Map<String, Object> row = jdbc.queryForMap("SELECT * FROM GAME_RESULT WHERE SESSION_ID = 'session-0'");
+        assertEquals("R2P", row.get("HISTORY"));
+        assertEquals("ROCK", row.get("FAVOURITE_MOVE"));
+        assertEquals(3, ((Number) row.get("VICTORIES")).intValue()
+                + ((Number) row.get("DEFEATS")).intValue() + ((Number) row.get("TIES")).intValue());
+    }
+
+    @Test
+    public void fullQueueDropsTest() throws InterruptedException {
+        GameResultWriter writer = writer(2, GameResultWriter.OverflowPolicy.DROP);
+        assertTrue(writer.record("session", stats()));
+        assertTrue(writer.record("session", stats()));
+        assertFalse(writer.record("session", stats()));
+        assertEquals(1, writer.dropped());
+
+        writer.start();
+        writer.destroy();
+        assertEquals(2, storedResults());
+    }
+
+    @Test
+    public void fullQueueBlocksOffTheCallerTest() throws InterruptedException {
+        GameResultWriter writer = writer(1, GameResultWriter.OverflowPolicy.BLOCK);
+        assertTrue(writer.record(null, stats()));
+
+        long start = System.nanoTime();
+        assertTrue(writer.record(null, stats()));
+        assertTrue(System.nanoTime() - start < Duration.ofMillis(20).toNanos());
+
+        Thread.sleep(100); // longer than the block timeout, nothing made room
+        assertEquals(1, writer.dropped());
+        assertEquals(1, writer.pending());
+    }
+
+    @Test
+    public void blockedRowGetsInWhenRoomIsMadeTest() throws InterruptedException {
+        GameResultWriter writer = new GameResultWriter(jdbc, transactions, 1, 2,
+                GameResultWriter.OverflowPolicy.BLOCK, Duration.ofSeconds(5));
+        assertTrue(writer.record("first", stats()));
+        assertTrue(writer.record("second", stats()));
+
+        writer.start();
+        writer.destroy();
+        assertEquals(2, storedResults());
+        assertEquals(0, writer.dropped());
+    }
+
+    @Test
+    public void failedBatchIsDroppedTest() throws InterruptedException {
+        jdbc.execute("DROP TABLE GAME_RESULT");
+        GameResultWriter writer = writer(10, GameResultWriter.OverflowPolicy.DROP);
+        writer.record("session", stats());
+
+        writer.start();
+        writer.destroy();
+        assertEquals(1, writer.dropped());
+        assertEquals(0, writer.written());
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.service;
+
+import org.example.service.RPSResolver.Move;
+import org.junit.Test;
+
+import java.io.*;
+
+import static org.junit.Assert.*;
+
+public class EnsemblePredictorTest {
+
+    private static final Move[] MOVES = Move.values();
+
+    @Test
+    public void followsBestMemberTest() {
+        // the player always beats the AI's last move, which only the rotated AI member predicts
+        EnsemblePredictor ensemble = new EnsemblePredictor(Predictors.markov(2), Predictors.frequency(), Predictors.aiLast());
+        MoveHistory moves = new MoveHistory();
+        Move aiLast = Move.ROCK;
+        int wins = 0;
+        for (int i = 0; i < 300; i++) {
+            Move move = aiLast.losesTo;
+            int predicted = ensemble.predict(moves, i % 3);
+            Move aiMove = predicted < 0 ? MOVES[i % 3] : MOVES[predicted].losesTo;
+            if (i >= 100 && aiMove == move.losesTo) {
+                wins++;
+            }
+            moves.add(move);
+            ensemble.update(moves, aiMove.ordinal());
+            aiLast = aiMove;
+        }
+        assertEquals(200, wins);
+        assertTrue(ensemble.score(2, 1) > ensemble.score(2, 0));
+    }
+
+    @Test
+    public void adaptsToCounterTest() {
+        // the player switches from ROCK to what beats our counter to ROCK, frequencies still say ROCK
+        EnsemblePredictor ensemble = new EnsemblePredictor(Predictors.frequency());
+        MoveHistory moves = new MoveHistory();
+        for (int i = 0; i < 50; i++) {
+            ensemble.predict(moves, 0);
+            moves.add(Move.ROCK);
+            ensemble.update(moves, Move.PAPER.ordinal());
+        }
+        int hits = 0;
+        for (int i = 0; i < 20; i++) {
+            if (ensemble.predict(moves, 0) == Move.SCISSORS.ordinal()) {
+                hits++;
+            }
+            moves.add(Move.SCISSORS);
+            ensemble.update(moves, Move.PAPER.ordinal());
+        }
+        assertEquals(Move.ROCK, moves.favourite());
+        assertEquals(16, hits);
+    }
+
+    @Test
+    public void roundTripTest() throws IOException {
+        EnsemblePredictor ensemble = Predictors.standard(Predictors.markov(2), 2);
+        MoveHistory moves = new MoveHistory();
+        for (int i = 0; i < 100; i++) {
+            ensemble.predict(moves, 0);
+            moves.add(MOVES[i * 7 % 5 % 3]);
+            ensemble.update(moves, i % 3);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ensemble.writeTo(new DataOutputStream(bytes));
+        EnsemblePredictor restored = Predictors.standard(Predictors.markov(2), 2);
+        restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        restored.rebuild(moves);
+
+        for (int i = 0; i < restored.size(); i++) {
+            for (int r = 0; r < 3; r++) {
+                assertEquals(ensemble.score(i, r), restored.score(i, r), 1e-4);
+            }
+        }
+        assertEquals(ensemble.predict(moves, 1), restored.predict(moves, 1));
+        assertThrows(InvalidObjectException.class, () -> new EnsemblePredictor(Predictors.frequency())
+                .readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+    }
+}
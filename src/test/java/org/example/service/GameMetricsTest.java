@@ -0,0 +1,38 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class GameMetricsTest {
+
+    private MeterRegistry registry;
+    private GameMetrics metrics;
+
+    @Before
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new GameMetrics(registry, new OverallStatsKeeper());
+    }
+
+    @Test
+    public void predictorRoundsTest() {
+        RPSResolver.BaseStats stats = new RPSResolver.BaseStats();
+        metrics.recordPlay(new RPSResolver.Response("ROCK", "PAPER", RPSResolver.Decision.DEFEAT, stats), 1000);
+        metrics.recordBatch(new RPSResolver.BatchResponse(Arrays.asList(
+                new RPSResolver.Response("ROCK", "ROCK", RPSResolver.Decision.TIE, null),
+                new RPSResolver.Response("ROCK", "SCISSORS", RPSResolver.Decision.VICTORY, null),
+                new RPSResolver.Response("PAPER", "SCISSORS", RPSResolver.Decision.DEFEAT, null)), stats), 2000);
+
+        assertEquals(2.0, registry.counter("rps.predictor.rounds", "result", "win").count(), 0.0);
+        assertEquals(1.0, registry.counter("rps.predictor.rounds", "result", "tie").count(), 0.0);
+        assertEquals(1.0, registry.counter("rps.predictor.rounds", "result", "loss").count(), 0.0);
+        assertEquals(1, registry.timer("rps.play").count());
+        assertEquals(1, registry.timer("rps.play.batch").count());
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.service;
+
+import com.google.gson.Gson;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GlobalStatsPublisherTest {
+
+    private OverallStatsKeeper statsKeeper;
+    private PopulationModel population;
+    private GlobalStatsPublisher publisher;
+
+    @Before
+    public void setUp() {
+        statsKeeper = new OverallStatsKeeper();
+        population = new PopulationModel(2);
+        publisher = new GlobalStatsPublisher(statsKeeper, population, 3,
+                Clock.fixed(Instant.ofEpochMilli(1000), ZoneOffset.UTC));
+    }
+
+    private void count(String sessionId, int victories, int defeats) {
+        statsKeeper.count(sessionId, new RPSResolver.Response("ROCK", "PAPER", RPSResolver.Decision.DEFEAT,
+                new RPSResolver.BaseStats(victories, defeats, 0)));
+    }
+
+    private GlobalStatsPublisher.GlobalStats published() {
+        return new Gson().fromJson(new String(publisher.json(), StandardCharsets.UTF_8), GlobalStatsPublisher.GlobalStats.class);
+    }
+
+    @Test
+    public void emptyTest() {
+        GlobalStatsPublisher.GlobalStats stats = published();
+
+        assertEquals(1000, stats.generatedAt);
+        assertEquals(0, stats.users);
+        assertEquals(0, stats.topWinRates.length);
+        assertEquals(GlobalStatsPublisher.HISTOGRAM_BINS, stats.winRateHistogram.length);
+        assertEquals(0.0, stats.averageGameLength, 0.0);
+    }
+
+    @Test
+    public void snapshotTest() {
+        count("1111", 1, 3);
+        count("2222", 3, 1);
+        count("3333", 10, 0);
+        count("4444", 0, 10);
+        count("5555", 1, 1);
+
+        assertEquals(0, published().users);
+
+        publisher.refresh();
+        GlobalStatsPublisher.GlobalStats stats = published();
+
+        assertEquals(5, stats.users);
+        assertArrayEquals(new int[] {1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 1}, stats.winRateHistogram);
+        assertEquals(3, stats.topWinRates.length);
+        assertEquals(1.0, stats.topWinRates[0], 0.0);
+        assertEquals(0.75, stats.topWinRates[1], 0.0001);
+        assertEquals(0.5, stats.topWinRates[2], 0.0001);
+    }
+
+    @Test
+    public void populationTest() {
+        RPSResolver resolver = new RPSResolver(2, new Random(1), population);
+        for (String move : new String[] {"ROCK", "ROCK", "ROCK", "PAPER"}) {
+            resolver.play(move);
+        }
+        resolver.stop();
+        resolver.play("SCISSORS");
+        resolver.play("SCISSORS");
+        resolver.stop();
+        resolver.stop();
+
+        publisher.refresh();
+        GlobalStatsPublisher.GlobalStats stats = published();
+
+        assertEquals(2, stats.games);
+        assertEquals(3.0, stats.averageGameLength, 0.0);
+        assertEquals(0.5, stats.moveFrequencies.get("ROCK"), 0.0);
+        assertEquals(1.0 / 6, stats.moveFrequencies.get("PAPER"), 0.0000001);
+        assertEquals(1.0 / 3, stats.moveFrequencies.get("SCISSORS"), 0.0000001);
+    }
+
+    @Test
+    public void remoteUsersTest() throws Exception {
+        OverallStatsKeeper otherNode = new OverallStatsKeeper();
+        otherNode.count("9999", new RPSResolver.Response("ROCK", "PAPER", RPSResolver.Decision.DEFEAT,
+                new RPSResolver.BaseStats(3, 1, 0)));
+        count("1111", 1, 3);
+        statsKeeper.mergeRemote(Collections.singletonList(otherNode.localSketch()));
+
+        publisher.refresh();
+        GlobalStatsPublisher.GlobalStats stats = published();
+
+        assertEquals(2, stats.users);
+        assertEquals(0.75, stats.topWinRates[0], 0.0);
+        assertEquals(0.25, stats.topWinRates[1], 0.0);
+        assertEquals(1, stats.winRateHistogram[5]);
+        assertEquals(1, stats.winRateHistogram[15]);
+    }
+}
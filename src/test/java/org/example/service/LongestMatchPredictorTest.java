@@ -0,0 +1,107 @@
+package org.example.service;
+
+import org.example.service.RPSResolver.Move;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LongestMatchPredictorTest {
+
+    private static final Move[] MOVES = Move.values();
+
+    @Test
+    public void learnsCyclesTest() {
+        Random rand = new Random(3);
+        for (int length = 4; length <= 10; length++) {
+            int[] cycle = new int[length];
+            for (int i = 0; i < length; i++) {
+                cycle[i] = rand.nextInt(MOVES.length);
+            }
+            LongestMatchPredictor matcher = new LongestMatchPredictor();
+            MoveHistory history = new MoveHistory();
+            int hits = 0;
+            for (int i = 0; i < 200; i++) {
+                int move = cycle[i % length];
+                if (i >= 2 * length && matcher.predict(history, 0) == move) {
+                    hits++;
+                }
+                history.add(MOVES[move]);
+                matcher.update(history, 0);
+            }
+            assertEquals("cycle " + length, 200 - 2 * length, hits);
+        }
+    }
+
+    @Test
+    public void longestMatchTest() {
+        LongestMatchPredictor matcher = new LongestMatchPredictor();
+        MoveHistory history = new MoveHistory();
+        assertEquals(-1, matcher.predict(history, 0));
+        // R P S R P R P
+        for (Move move : new Move[]{Move.ROCK, Move.PAPER, Move.SCISSORS, Move.ROCK, Move.PAPER, Move.ROCK, Move.PAPER}) {
+            history.add(move);
+            matcher.update(history, 0);
+        }
+        assertEquals(2, matcher.matchLength()); // R P
+        assertEquals(Move.ROCK.ordinal(), matcher.predict(history, 0)); // most recent continuation
+    }
+
+    @Test
+    public void rebuildsWhenWindowIsFullTest() {
+        int[] cycle = {0, 0, 2, 1, 2, 2, 1};
+        LongestMatchPredictor matcher = new LongestMatchPredictor();
+        MoveHistory history = new MoveHistory();
+        int misses = 0;
+        for (int i = 0; i < LongestMatchPredictor.WINDOW * 2 + 100; i++) {
+            int move = cycle[i % cycle.length];
+            if (i >= cycle.length * 2 && matcher.predict(history, 0) != move) {
+                misses++;
+            }
+            history.add(MOVES[move]);
+            matcher.update(history, 0);
+        }
+        assertEquals(0, misses);
+        assertTrue(matcher.matchLength() <= LongestMatchPredictor.WINDOW);
+
+        LongestMatchPredictor rebuilt = new LongestMatchPredictor();
+        rebuilt.rebuild(history);
+        assertEquals(matcher.predict(history, 0), rebuilt.predict(history, 0));
+    }
+
+    @Test
+    public void memoryIsBoundedAndGivenBackTest() {
+        LongestMatchPredictor matcher = new LongestMatchPredictor();
+        MoveHistory history = new MoveHistory();
+        Random rand = new Random(5);
+        for (int i = 0; i < LongestMatchPredictor.WINDOW * 3; i++) {
+            history.add(MOVES[rand.nextInt(MOVES.length)]);
+            matcher.update(history, 0);
+            assertTrue(matcher.capacity() <= 2 * LongestMatchPredictor.WINDOW);
+        }
+        assertTrue(matcher.capacity() > LongestMatchPredictor.INITIAL_CAPACITY);
+
+        matcher.reset();
+
+        assertEquals(LongestMatchPredictor.INITIAL_CAPACITY, matcher.capacity());
+        assertEquals(-1, matcher.predict(history, 0));
+    }
+
+    @Test
+    public void clearTest() {
+        LongestMatchPredictor matcher = new LongestMatchPredictor();
+        MoveHistory history = new MoveHistory();
+        for (int i = 0; i < 20; i++) {
+            history.add(Move.ROCK);
+            matcher.update(history, 0);
+        }
+        matcher.reset();
+        history.clear();
+        assertEquals(0, matcher.matchLength());
+        history.add(Move.PAPER);
+        matcher.update(history, 0);
+        assertEquals(0, matcher.matchLength());
+        assertEquals(-1, matcher.predict(history, 0));
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.service;
+
+import org.junit.Test;
+
+import java.io.*;
+
+import static org.junit.Assert.*;
+
+public class MarkovPredictorTest {
+
+    private static final int[] CYCLE = {0, 2, 1, 1, 0, 0}; // ROCK PAPER SCISSORS SCISSORS ROCK ROCK
+
+    @Test
+    public void learnsCycleTest() {
+        MarkovPredictor predictor = new MarkovPredictor(4);
+        int hits = 0;
+        for (int i = 0; i < 600; i++) {
+            int move = CYCLE[i % CYCLE.length];
+            if (i >= 100 && predictor.predict(0) == move) {
+                hits++;
+            }
+            predictor.update(move);
+        }
+        assertEquals(500, hits);
+    }
+
+    @Test
+    public void incompleteContextTest() {
+        MarkovPredictor predictor = new MarkovPredictor(3);
+        predictor.update(1);
+        predictor.update(1);
+
+        assertEquals(-1, predictor.predict(0));
+        predictor.update(1);
+        assertEquals(2, predictor.predict(2));
+    }
+
+    @Test
+    public void invalidOrderTest() {
+        assertThrows(IllegalArgumentException.class, () -> new MarkovPredictor(0));
+        assertThrows(IllegalArgumentException.class, () -> new MarkovPredictor(MarkovPredictor.MAX_ORDER + 1));
+    }
+
+    @Test
+    public void roundTripTest() throws IOException {
+        MarkovPredictor predictor = new MarkovPredictor(MarkovPredictor.MAX_ORDER);
+        MoveHistory history = new MoveHistory();
+        for (int i = 0; i < 300; i++) {
+            predictor.update(CYCLE[i % CYCLE.length]);
+            history.add(RPSResolver.Move.values()[CYCLE[i % CYCLE.length]]);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        predictor.writeTo(new DataOutputStream(bytes));
+        MarkovPredictor restored = MarkovPredictor.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        restored.rebuildContext(history);
+
+        assertTrue("size " + bytes.size(), bytes.size() < 32);
+        assertEquals(MarkovPredictor.MAX_ORDER, restored.order());
+        assertEquals(predictor.predict(1), restored.predict(1));
+    }
+}
@@ -0,0 +1,141 @@
+package org.example.service;
+
+import org.example.eventlog.MoveEventLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.example.service.RPSResolver.Move.*;
+import static org.junit.Assert.*;
+
+public class ModelTrainerTest {
+
+    private Path directory;
+    private ExecutorService pool;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("model-trainer");
+        pool = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    // index of a move after a context, the context's last move is least significant
+    private static int index(RPSResolver.Move move, RPSResolver.Move... context) {
+        int index = 0;
+        for (RPSResolver.Move previous : context) {
+            index = index * 3 + previous.ordinal();
+        }
+        return index * 3 + move.ordinal();
+    }
+
+    @Test
+    public void csvTest() throws Exception {
+        Path csv = directory.resolve("games.csv");
+        Files.write(csv, Arrays.asList("# player moves", "ROCK,rock,PAPER", "RRP", "", "r r p s"), StandardCharsets.UTF_8);
+
+        ModelTrainer.Counts counts = new ModelTrainer(2).train(Collections.singletonList(csv), pool);
+
+        assertEquals(3, counts.games());
+        assertEquals(10, counts.moves());
+        assertEquals(3, counts.count(2, index(PAPER, ROCK, ROCK)));
+        assertEquals(3, counts.count(1, index(ROCK, ROCK)));
+        assertEquals(1, counts.count(2, index(SCISSORS, ROCK, PAPER)));
+        assertEquals(0, counts.count(1, index(ROCK, SCISSORS)));
+    }
+
+    @Test
+    public void chunksTest() throws Exception {
+        StringBuilder games = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            games.append(i % 2 == 0 ? "RPSSRRPSP" : "PAPER,SCISSORS,ROCK,ROCK").append('\n');
+        }
+        Path csv = directory.resolve("games.csv");
+        Files.write(csv, games.toString().getBytes(StandardCharsets.UTF_8));
+
+        ModelTrainer.Counts whole = new ModelTrainer(3).train(Collections.singletonList(csv), pool);
+        ModelTrainer.Counts chunked = new ModelTrainer(3, 100).train(Collections.singletonList(csv), pool);
+
+        assertEquals(500, chunked.games());
+        assertEquals(whole.moves(), chunked.moves());
+        for (int order = 1; order <= 3; order++) {
+            for (int i = 0; i < MarkovPredictor.tableSize(order); i++) {
+                assertEquals(whole.count(order, i), chunked.count(order, i));
+            }
+        }
+    }
+
+    @Test
+    public void unknownMoveTest() throws IOException {
+        Path csv = directory.resolve("games.csv");
+        Files.write(csv, Collections.singletonList("ROCK,LIZARD"), StandardCharsets.UTF_8);
+
+        IOException ex = assertThrows(IOException.class, () -> new ModelTrainer(2).train(Collections.singletonList(csv), pool));
+        assertTrue(ex.getMessage(), ex.getMessage().contains("byte 5"));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ModelTrainer(2).train(Collections.singletonList(directory.resolve("games.txt")), pool));
+    }
+
+    @Test
+    public void eventLogTest() throws Exception {
+        Path events = Files.createDirectory(directory.resolve("events"));
+        MoveEventLog log = new MoveEventLog(events.toString(), 1024, 1 << 20, 4);
+        log.start();
+        // two interleaved games
+        log.move(1, 1, ROCK.ordinal(), PAPER.ordinal(), 2);
+        log.move(2, 1, SCISSORS.ordinal(), PAPER.ordinal(), 1);
+        log.move(1, 2, ROCK.ordinal(), PAPER.ordinal(), 2);
+        log.move(2, 2, SCISSORS.ordinal(), PAPER.ordinal(), 1);
+        log.move(1, 3, PAPER.ordinal(), PAPER.ordinal(), 0);
+        log.gameOver(1, 0, 2, 1);
+        log.gameOver(2, 2, 0, 0);
+        log.close();
+
+        ModelTrainer.Counts counts = new ModelTrainer(2).train(MoveEventLog.segments(events), pool);
+
+        assertEquals(2, counts.games());
+        assertEquals(5, counts.moves());
+        assertEquals(1, counts.count(2, index(PAPER, ROCK, ROCK)));
+        assertEquals(1, counts.count(1, index(SCISSORS, SCISSORS)));
+        assertEquals(0, counts.count(1, index(ROCK, SCISSORS)));
+    }
+
+    @Test
+    public void writeAndMapTest() throws Exception {
+        Path csv = directory.resolve("games.csv");
+        Files.write(csv, Collections.nCopies(10, "RRPSRRP"), StandardCharsets.UTF_8);
+        ModelTrainer.Counts counts = new ModelTrainer(MarkovPredictor.MAX_ORDER).train(Collections.singletonList(csv), pool);
+        Path file = directory.resolve("model.bin");
+        counts.write(file);
+
+        TransitionModel model = TransitionModel.map(file);
+        assertEquals(MarkovPredictor.MAX_ORDER, model.maxOrder());
+        assertEquals(10, model.games());
+        assertEquals(70, model.moves());
+        for (int order = 1; order <= MarkovPredictor.MAX_ORDER; order++) {
+            for (int i = 0; i < MarkovPredictor.tableSize(order); i++) {
+                assertEquals(counts.count(order, i), model.count(order, i));
+            }
+        }
+    }
+}
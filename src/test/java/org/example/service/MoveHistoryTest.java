@@ -0,0 +1,92 @@
+package org.example.service;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.example.service.RPSResolver.Move.*;
+import static org.junit.Assert.*;
+
+public class MoveHistoryTest {
+
+    private MoveHistory history;
+
+    @Before
+    public void setUp() {
+        history = new MoveHistory();
+    }
+
+    @Test
+    public void lastMovesTest() {
+        RPSResolver.Move[] moves = new RPSResolver.Move[] {ROCK, PAPER, SCISSORS, PAPER, PAPER};
+        for (RPSResolver.Move move : moves) {
+            history.add(move);
+        }
+
+        assertEquals(5, history.size());
+        assertEquals(PAPER, history.last(0));
+        assertEquals(SCISSORS, history.last(2));
+        assertEquals(ROCK, history.last(4));
+        assertEquals(PAPER, history.favourite());
+        assertEquals(3, history.count(PAPER));
+        assertEquals("RPSP2", history.toRunLength());
+    }
+
+    @Test
+    public void wrapAroundTest() {
+        int total = MoveHistory.MAX_MOVES + 10;
+        for (int i = 0; i < total; i++) {
+            history.add(RPSResolver.Move.values()[i % 3]);
+        }
+
+        assertEquals(total, history.size());
+        assertEquals(MoveHistory.MAX_MOVES, history.retained());
+        assertEquals(RPSResolver.Move.values()[(total - 1) % 3], history.last(0));
+        assertEquals(RPSResolver.Move.values()[(total - 7) % 3], history.last(6));
+        assertEquals(ROCK, history.favourite());
+        assertThrows(IndexOutOfBoundsException.class, () -> history.get(0));
+    }
+
+    @Test
+    public void writeLettersTest() throws IOException {
+        for (int i = 0; i < 20_000; i++) {
+            history.add(i % 5 == 0 ? SCISSORS : ROCK);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        history.writeLetters(out);
+
+        byte[] letters = out.toByteArray();
+        assertEquals(20_000, letters.length);
+        assertEquals("SRRRRSRRRR", new String(letters, 0, 10, StandardCharsets.US_ASCII));
+        assertEquals('R', letters[19_999]);
+        assertTrue(history.toRunLength().startsWith("SR4SR4"));
+    }
+
+    @Test
+    public void copyTest() throws IOException {
+        history.add(ROCK);
+        history.add(PAPER);
+        MoveHistory copy = history.copy();
+        history.add(SCISSORS);
+        history.clear();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        copy.writeLetters(out);
+        assertEquals("RP", new String(out.toByteArray(), StandardCharsets.US_ASCII));
+        assertEquals(1, copy.count(PAPER));
+        assertEquals(2, copy.size());
+    }
+
+    @Test
+    public void clearTest() {
+        history.add(SCISSORS);
+        history.clear();
+
+        assertTrue(history.isEmpty());
+        assertEquals(0, history.count(SCISSORS));
+        assertEquals(ROCK, history.favourite());
+    }
+}
@@ -3,6 +3,14 @@ package org.example.service;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collections;
+
 import static org.junit.Assert.*;
 
 public class OverallStatsKeeperTest {
@@ -38,4 +46,103 @@ public class OverallStatsKeeperTest {
         assertEquals(0.2, statsKeeper.getUserPlace("5555"), 0.00000001);
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void replacedStatsTest() {
+        statsKeeper.count("2222", new RPSResolver.Response("ROCK", "SCISSORS",
+                RPSResolver.Decision.VICTORY,
+                new RPSResolver.BaseStats(100, 9, 50)));
+
+        assertEquals(0.6, statsKeeper.getUserPlace("2222"), 0.00000001);
+        assertEquals(0.4, statsKeeper.getUserPlace("1111"), 0.00000001);
+        assertEquals(0.2, statsKeeper.getUserPlace("5555"), 0.00000001);
+        assertEquals(0.0, statsKeeper.getUserPlace("unknown"), 0.00000001);
+    }
+
+    @Test
+    public void forgetTest() {
+        statsKeeper.forget("2222");
+
+        assertEquals(4, statsKeeper.size());
+        assertEquals(0.0, statsKeeper.getUserPlace("2222"), 0.00000001);
+        assertEquals(0.5, statsKeeper.getUserPlace("1111"), 0.00000001);
+    }
+
+    @Test
+    public void expiryTest() {
+        MutableClock clock = new MutableClock();
+        OverallStatsKeeper keeper = new OverallStatsKeeper(100, Duration.ofHours(1), clock);
+        keeper.count("old", response(new RPSResolver.BaseStats(1, 0, 0)));
+        clock.advance(Duration.ofMinutes(40));
+        keeper.count("recent", response(new RPSResolver.BaseStats(0, 1, 0)));
+        clock.advance(Duration.ofMinutes(30));
+        keeper.evictExpired();
+
+        assertEquals(1, keeper.size());
+        assertEquals(0.0, keeper.getUserPlace("old"), 0.00000001);
+        assertEquals(1.0, keeper.getUserPlace("recent"), 0.00000001);
+    }
+
+    @Test
+    public void mergeRemoteTest() throws IOException {
+        OverallStatsKeeper otherNode = new OverallStatsKeeper();
+        otherNode.count("6666", new RPSResolver.Response("ROCK", "PAPER",
+                RPSResolver.Decision.DEFEAT,
+                new RPSResolver.BaseStats(0, 10, 0)));
+        otherNode.count("7777", new RPSResolver.Response("ROCK", "PAPER",
+                RPSResolver.Decision.DEFEAT,
+                new RPSResolver.BaseStats(10, 0, 0)));
+
+        statsKeeper.mergeRemote(Collections.singletonList(otherNode.localSketch()));
+
+        assertEquals(4.0 / 7, statsKeeper.getUserPlace("1111"), 0.00000001);
+        assertEquals(6.0 / 7, statsKeeper.getUserPlace("3333"), 0.00000001);
+        assertEquals(2.0 / 7, statsKeeper.getUserPlace("5555"), 0.00000001);
+        assertEquals(5, statsKeeper.size());
+
+        statsKeeper.mergeRemote(Collections.<byte[]>emptyList());
+
+        assertEquals(0.6, statsKeeper.getUserPlace("1111"), 0.00000001);
+    }
+
+    @Test
+    public void maxSessionsTest() {
+        MutableClock clock = new MutableClock();
+        OverallStatsKeeper keeper = new OverallStatsKeeper(64, Duration.ofDays(7), clock);
+        for (int i = 0; i < 1000; i++) {
+            keeper.count("session-" + i, response(new RPSResolver.BaseStats(i % 7, 3, 1)));
+            clock.advance(Duration.ofSeconds(1));
+        }
+
+        assertTrue(keeper.size() <= 64);
+        assertTrue(keeper.getUserPlace("session-999") > 0.0);
+        assertEquals(0.0, keeper.getUserPlace("session-0"), 0.00000001);
+    }
+
+    private static RPSResolver.Response response(RPSResolver.BaseStats stats) {
+        return new RPSResolver.Response("ROCK", "ROCK", RPSResolver.Decision.TIE, stats);
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
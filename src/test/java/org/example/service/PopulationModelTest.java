@@ -0,0 +1,85 @@
+package org.example.service;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.example.service.RPSResolver.Move.*;
+import static org.junit.Assert.*;
+
+public class PopulationModelTest {
+
+    private final PopulationModel population = new PopulationModel(2);
+
+    @Test
+    public void priorPredictsNewSessionTest() {
+        // earlier players always followed ROCK, ROCK with PAPER
+        for (int i = 0; i < 20; i++) {
+            RPSResolver resolver = new RPSResolver(2, new Random(i), population);
+            resolver.play(ROCK);
+            resolver.play(ROCK);
+            resolver.play(PAPER);
+        }
+        RPSResolver newcomer = new RPSResolver(2, new Random(), population);
+        newcomer.play(ROCK);
+        newcomer.play(ROCK);
+
+        assertEquals("SCISSORS", newcomer.play(PAPER).getAiMove());
+    }
+
+    @Test
+    public void newcomerFollowsPriorTest() {
+        // earlier players cycled ROCK, PAPER, SCISSORS, the newcomer's other members haven't seen it yet
+        RPSResolver.Move[] cycle = {ROCK, PAPER, SCISSORS};
+        for (int i = 0; i < 20; i++) {
+            RPSResolver resolver = new RPSResolver(2, new Random(i), population);
+            for (int j = 0; j < 12; j++) {
+                resolver.play(cycle[j % 3]);
+            }
+        }
+        RPSResolver newcomer = new RPSResolver(2, new Random(), population);
+        newcomer.play(cycle[0]);
+        newcomer.play(cycle[1]);
+
+        // from the first round with a context of two moves, the AI counters what the prior expects
+        for (int j = 2; j < 12; j++) {
+            assertEquals(cycle[j % 3].losesTo.toString(), newcomer.play(cycle[j % 3]).getAiMove());
+        }
+    }
+
+    @Test
+    public void ownDataOutweighsPriorTest() {
+        MarkovPredictor predictor = new MarkovPredictor(2);
+        for (int i = 0; i < 100; i++) {
+            predictor.update(ROCK.ordinal(), population);
+            predictor.update(ROCK.ordinal(), population);
+            predictor.update(PAPER.ordinal(), population);
+            predictor.resetContext();
+        }
+        MarkovPredictor own = new MarkovPredictor(2);
+        for (int i = 0; i < 2 * (int) PopulationModel.PRIOR_STRENGTH; i++) {
+            own.update(ROCK.ordinal());
+        }
+
+        assertEquals(ROCK.ordinal(), own.predict(PAPER.ordinal(), population));
+    }
+
+    @Test
+    public void concurrentUpdatesTest() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    population.record(5);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(80_000, population.count(5));
+    }
+}
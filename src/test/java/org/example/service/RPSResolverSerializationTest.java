@@ -0,0 +1,107 @@
+package org.example.service;
+
+import org.junit.Test;
+
+import java.io.*;
+
+import static org.junit.Assert.*;
+
+public class RPSResolverSerializationTest {
+
+    @Test
+    public void roundTripTest() throws Exception {
+        RPSResolver resolver = new RPSResolver();
+        for (int i = 0; i < 1000; i++) {
+            resolver.play(RPSResolver.Move.values()[i % 3].toString());
+        }
+        byte[] blob = serialize(resolver);
+        RPSResolver restored = (RPSResolver) deserialize(blob);
+
+        assertTrue("blob size " + blob.length, blob.length < 512);
+        RPSResolver.DetailedStats expected = resolver.stop();
+        RPSResolver.DetailedStats actual = restored.stop();
+        assertEquals(expected.getHistory(), actual.getHistory());
+        assertEquals(expected.getVictories(), actual.getVictories());
+        assertEquals(expected.getDefeats(), actual.getDefeats());
+        assertEquals(expected.getTies(), actual.getTies());
+    }
+
+    @Test
+    public void restoredChainTest() throws Exception {
+        RPSResolver resolver = new RPSResolver();
+        for (int i = 0; i < 50; i++) {
+            resolver.play("PAPER");
+        }
+        RPSResolver restored = (RPSResolver) deserialize(serialize(resolver));
+
+        assertEquals(RPSResolver.Decision.DEFEAT, restored.play("PAPER").result);
+    }
+
+    @Test
+    public void lastGameTest() throws Exception {
+        RPSResolver resolver = new RPSResolver();
+        for (String move : new String[] {"ROCK", "ROCK", "SCISSORS"}) {
+            resolver.play(move);
+        }
+        resolver.stop();
+        resolver.play("PAPER");
+        RPSResolver restored = (RPSResolver) deserialize(serialize(resolver));
+
+        ByteArrayOutputStream last = new ByteArrayOutputStream();
+        restored.history(true).writeTo(last);
+        ByteArrayOutputStream current = new ByteArrayOutputStream();
+        restored.history(false).writeTo(current);
+        assertEquals("RRS", last.toString("US-ASCII"));
+        assertEquals("P", current.toString("US-ASCII"));
+    }
+
+    @Test
+    public void legacyBlobTest() throws Exception {
+        // written by the LinkedList based version with default serialization
+        RPSResolver.DetailedStats stats = playAfterRestore("/legacy-resolver.ser");
+
+        assertEquals(6, stats.getVictories());
+        assertEquals(4, stats.getDefeats());
+        assertEquals(1, stats.getTies());
+    }
+
+    @Test
+    public void versionOneBlobTest() throws Exception {
+        // written by the first compact form with a dense second order chain
+        RPSResolver.DetailedStats stats = playAfterRestore("/resolver-v1.ser");
+
+        assertEquals(3, stats.getVictories());
+        assertEquals(4, stats.getDefeats());
+        assertEquals(4, stats.getTies());
+    }
+
+    /**
+     * Both blobs hold the same game, after which the restored chain has seen SCISSORS, ROCK followed by PAPER.
+     */
+    private RPSResolver.DetailedStats playAfterRestore(String blob) throws Exception {
+        RPSResolver restored;
+        try (InputStream in = getClass().getResourceAsStream(blob)) {
+            restored = (RPSResolver) new ObjectInputStream(in).readObject();
+        }
+
+        RPSResolver.Response response = restored.play("PAPER");
+        assertEquals("SCISSORS", response.aiMove);
+        RPSResolver.DetailedStats stats = restored.stop();
+        assertEquals("R2PSRP2RSRP", stats.getHistory());
+        return stats;
+    }
+
+    private static byte[] serialize(Object o) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(o);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] blob) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(blob))) {
+            return in.readObject();
+        }
+    }
+}
@@ -81,6 +81,23 @@ public class RPSResolverTest {
         assertTrue(response.statistics.getDefeats() > 0); // ai wins
     }
 
+    @Test
+    public void playBatchTest() {
+        RPSResolver.BatchResponse response = resolver.playAll(Arrays.asList("rock", "PAPER", "scissors", "rock"));
+
+        assertEquals(4, response.rounds.size());
+        assertEquals("PAPER", response.rounds.get(1).playerMove);
+        assertNull(response.rounds.get(3).statistics);
+        assertEquals(4, response.statistics.sum());
+        assertEquals("RPSR", resolver.stop().getHistory());
+    }
+
+    @Test
+    public void invalidBatchTest() {
+        assertThrows(IllegalArgumentException.class, () -> resolver.playAll(Arrays.asList("rock", "rock1")));
+        assertEquals(0, resolver.stop().sum()); // nothing is applied
+    }
+
     @Test
     public void invalidInputTest() {
         assertThrows(IllegalArgumentException.class, () -> resolver.play("asdf"));
@@ -101,7 +118,7 @@ public class RPSResolverTest {
         RPSResolver.DetailedStats stats = resolver.stop();
 
         assertEquals(moves.length, stats.sum());
-        assertEquals(Arrays.asList(moves), stats.getMovesHistory());
+        assertEquals("P6SRP", stats.getHistory());
         assertEquals("PAPER", stats.getFavouriteMove());
         assertEquals(7 / 9.0, stats.getPercentageOfFavouriteMove(), 0.0000001);
         assertEquals(0.0, stats.getBetterThanOtherUsersPercentage(), 0.0000001);
@@ -118,7 +135,7 @@ public class RPSResolverTest {
         RPSResolver.DetailedStats stats = resolver.stop();
 
         assertEquals(moves.length, stats.sum());
-        assertEquals(Arrays.asList(moves), stats.getMovesHistory());
+        assertEquals("R6", stats.getHistory());
         assertEquals("ROCK", stats.getFavouriteMove());
         assertEquals(1.0, stats.getPercentageOfFavouriteMove(), 0.0000001);
         assertEquals(0.0, stats.getBetterThanOtherUsersPercentage(), 0.0000001);
@@ -135,7 +152,7 @@ public class RPSResolverTest {
         RPSResolver.DetailedStats stats = resolver.stop();
 
         assertEquals(moves.length, stats.sum());
-        assertEquals(Arrays.asList(moves), stats.getMovesHistory());
+        assertEquals("R2P2S2", stats.getHistory());
         assertEquals("ROCK", stats.getFavouriteMove());
         assertEquals(1 / 3.0, stats.getPercentageOfFavouriteMove(), 0.0000001);
         assertEquals(0.0, stats.getBetterThanOtherUsersPercentage(), 0.0000001);
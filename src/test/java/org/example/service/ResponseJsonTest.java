@@ -0,0 +1,84 @@
+package org.example.service;
+
+import com.google.gson.Gson;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ResponseJsonTest {
+
+    private final Gson gson = new Gson();
+    private final ResponseJson json = new ResponseJson();
+
+    private void assertSameAsGson(RPSResolver.Response response) {
+        json.write(response);
+        assertArrayEquals(gson.toJson(response).getBytes(StandardCharsets.UTF_8), json.toByteArray());
+    }
+
+    private void assertSameAsGson(RPSResolver.BatchResponse batch) {
+        json.write(batch);
+        assertArrayEquals(gson.toJson(batch).getBytes(StandardCharsets.UTF_8), json.toByteArray());
+    }
+
+    @Test
+    public void playedGameTest() {
+        RPSResolver resolver = new RPSResolver(2, new Random(7), null);
+        Random random = new Random(42);
+        RPSResolver.Move[] moves = RPSResolver.Move.values();
+        for (int i = 0; i < 2000; i++) {
+            assertSameAsGson(resolver.play(moves[random.nextInt(moves.length)]));
+        }
+    }
+
+    @Test
+    public void batchTest() {
+        RPSResolver resolver = new RPSResolver(2, new Random(7), null);
+        assertSameAsGson(resolver.playAll(Arrays.asList("ROCK", "paper", "SCISSORS", "ROCK")));
+        assertSameAsGson(resolver.playAll(Collections.<String>emptyList()));
+        assertSameAsGson(new RPSResolver.BatchResponse(null, null));
+        assertSameAsGson(new RPSResolver.BatchResponse(new ArrayList<>(Arrays.asList(null, resolver.play("ROCK"))), null));
+    }
+
+    @Test
+    public void numbersTest() {
+        int[] values = {0, 9, 10, 99, 100, 12345, Integer.MAX_VALUE, -1, -10, Integer.MIN_VALUE};
+        for (int value : values) {
+            RPSResolver.BaseStats stats = new RPSResolver.BaseStats(value, -value, value / 3);
+            assertSameAsGson(new RPSResolver.Response("ROCK", "PAPER", RPSResolver.Decision.DEFEAT, stats));
+        }
+    }
+
+    @Test
+    public void escapedStringsTest() {
+        assertSameAsGson(RPSResolver.Response.error("Invalid move: <rock> & \"paper\" = 'x'\\\n\t\r\b\f\u0001\u001f"));
+        assertSameAsGson(RPSResolver.Response.error("Zug ung\u00fcltig: \u2028\u2029 \u20ac \ud83d\ude00 \ud83d"));
+        assertSameAsGson(new RPSResolver.Response("rock", "ROCKS", null, null));
+        assertSameAsGson(new RPSResolver.Response(null, null, null, null));
+    }
+
+    @Test
+    public void bufferIsReusedTest() throws IOException {
+        List<String> moves = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            moves.add("PAPER");
+        }
+        RPSResolver resolver = new RPSResolver(2, new Random(7), null);
+        assertSameAsGson(resolver.playAll(moves));
+
+        RPSResolver.Response response = resolver.play("ROCK");
+        json.write(response);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        json.writeTo(out);
+        assertEquals(json.size(), out.size());
+        assertEquals(gson.toJson(response), new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
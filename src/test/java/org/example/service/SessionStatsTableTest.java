@@ -0,0 +1,66 @@
+package org.example.service;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class SessionStatsTableTest {
+
+    @Test
+    public void matchesHashMapTest() {
+        SessionStatsTable table = new SessionStatsTable(100_000, evicted -> fail("nothing should be evicted"));
+        Map<String, Long> expected = new HashMap<>();
+        Random rand = new Random(3);
+        for (int i = 0; i < 200_000; i++) {
+            String id = rand.nextBoolean() ? new UUID(rand.nextInt(5000), 7).toString() : "id-" + rand.nextInt(5000);
+            if (rand.nextInt(4) == 0) {
+                Long removed = expected.remove(id);
+                assertEquals(removed == null ? SessionStatsTable.EMPTY : removed, table.remove(id));
+            } else {
+                long value = rand.nextInt(1000) + 1;
+                Long previous = expected.put(id, value);
+                assertEquals(previous == null ? SessionStatsTable.EMPTY : previous, table.put(id, value));
+            }
+        }
+
+        assertEquals(expected.size(), table.size());
+        for (Map.Entry<String, Long> e : expected.entrySet()) {
+            assertEquals(e.getValue().longValue(), table.get(e.getKey()));
+        }
+    }
+
+    @Test
+    public void removeBelowTest() {
+        List<Long> evicted = new ArrayList<>();
+        SessionStatsTable table = new SessionStatsTable(100_000, evicted::add);
+        for (int i = 1; i <= 500; i++) {
+            table.put(UUID.randomUUID().toString(), i);
+        }
+        table.removeBelow(101);
+
+        assertEquals(400, table.size());
+        assertEquals(100, evicted.size());
+        assertTrue(evicted.stream().allMatch(v -> v <= 100));
+    }
+
+    @Test
+    public void fullTableEvictsOldEntriesTest() {
+        List<Long> evicted = new ArrayList<>();
+        SessionStatsTable table = new SessionStatsTable(1000, evicted::add);
+        Random rand = new Random(11);
+        for (int i = 1; i <= 5000; i++) {
+            String id = new UUID(rand.nextLong(), rand.nextLong()).toString();
+            long before = evicted.size();
+            table.put(id, i);
+
+            assertTrue(evicted.size() <= before + 1);
+            assertEquals(i, table.get(id));
+        }
+
+        assertEquals(5000, table.size() + evicted.size());
+        assertTrue(table.size() >= 1000);
+        assertTrue(evicted.stream().filter(v -> v <= 1000).count() >= 950);
+    }
+}
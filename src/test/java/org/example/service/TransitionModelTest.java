@@ -0,0 +1,83 @@
+package org.example.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TransitionModelTest {
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("transition-model", ".bin");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private static long[][] tables(int maxOrder) {
+        long[][] tables = new long[maxOrder][];
+        for (int order = 1; order <= maxOrder; order++) {
+            tables[order - 1] = new long[MarkovPredictor.tableSize(order)];
+            Arrays.fill(tables[order - 1], order);
+        }
+        return tables;
+    }
+
+    @Test
+    public void roundTripTest() throws IOException {
+        long[][] tables = tables(3);
+        tables[1][7] = 1L << 40;
+        TransitionModel.write(file, tables, 12, 345);
+
+        TransitionModel model = TransitionModel.map(file);
+        assertEquals(3, model.maxOrder());
+        assertEquals(12, model.games());
+        assertEquals(345, model.moves());
+        assertEquals(1L << 40, model.count(2, 7));
+        assertEquals(3, model.count(3, MarkovPredictor.tableSize(3) - 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> model.count(4, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> model.count(1, 9));
+    }
+
+    @Test
+    public void invalidFileTest() throws IOException {
+        Files.write(file, new byte[] {1, 2, 3});
+        assertThrows(IOException.class, () -> TransitionModel.map(file));
+
+        TransitionModel.write(file, tables(2), 0, 0);
+        byte[] truncated = Arrays.copyOf(Files.readAllBytes(file), 100);
+        Files.write(file, truncated);
+        assertThrows(IOException.class, () -> TransitionModel.map(file));
+
+        assertThrows(IllegalArgumentException.class, () -> TransitionModel.write(file, new long[][] {new long[3]}, 0, 0));
+    }
+
+    @Test
+    public void seedsPopulationTest() throws IOException {
+        // past games always followed ROCK, ROCK with PAPER
+        long[][] tables = tables(2);
+        Arrays.fill(tables[1], 0);
+        tables[1][(0 * 3 + 0) * 3 + RPSResolver.Move.PAPER.ordinal()] = 1000;
+        TransitionModel.write(file, tables, 1000, 3000);
+        PopulationModel population = new PopulationModel(2, TransitionModel.map(file));
+
+        RPSResolver newcomer = new RPSResolver(2, new Random(), population);
+        newcomer.play(RPSResolver.Move.ROCK);
+        newcomer.play(RPSResolver.Move.ROCK);
+
+        assertEquals("SCISSORS", newcomer.play(RPSResolver.Move.PAPER).getAiMove());
+        assertThrows(IllegalArgumentException.class, () -> new PopulationModel(3, TransitionModel.map(file)));
+    }
+}
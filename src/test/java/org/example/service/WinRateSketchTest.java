@@ -0,0 +1,63 @@
+package org.example.service;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class WinRateSketchTest {
+
+    @Test
+    public void indexCountsTest() {
+        WinRateIndex index = new WinRateIndex();
+        int[] expected = new int[WinRateIndex.RESOLUTION + 1];
+        for (double winRate : new double[] {0.0, 0.25, 0.25, 0.5, 0.99, 1.0, Double.NaN}) {
+            index.add(WinRateIndex.bucket(winRate));
+            ++expected[WinRateIndex.bucket(winRate)];
+        }
+        index.remove(WinRateIndex.bucket(0.99));
+        --expected[WinRateIndex.bucket(0.99)];
+
+        assertArrayEquals(expected, index.counts());
+    }
+
+    @Test
+    public void roundTripTest() throws IOException {
+        int[] counts = new int[WinRateIndex.RESOLUTION + 1];
+        counts[0] = 3;
+        counts[1000] = 70000;
+        counts[WinRateIndex.RESOLUTION] = 1;
+
+        byte[] sketch = WinRateSketch.encode(counts);
+
+        assertTrue(sketch.length <= 16);
+        assertArrayEquals(counts, WinRateSketch.decode(sketch));
+    }
+
+    @Test
+    public void mergeTest() {
+        int[] a = new int[WinRateIndex.RESOLUTION + 1];
+        int[] b = new int[WinRateIndex.RESOLUTION + 1];
+        a[10] = 2;
+        b[10] = 1;
+        b[20] = 4;
+
+        int[] atOrBelow = WinRateSketch.mergeCumulative(Arrays.asList(a, b));
+
+        assertEquals(0, atOrBelow[9]);
+        assertEquals(3, atOrBelow[10]);
+        assertEquals(3, atOrBelow[19]);
+        assertEquals(7, atOrBelow[WinRateIndex.RESOLUTION]);
+        assertEquals(0, WinRateSketch.mergeCumulative(Collections.<int[]>emptyList())[WinRateIndex.RESOLUTION]);
+    }
+
+    @Test
+    public void malformedTest() {
+        assertThrows(IOException.class, () -> WinRateSketch.decode(new byte[] {2, 0}));
+        assertThrows(IOException.class, () -> WinRateSketch.decode(new byte[] {1, 5, 0}));
+        assertThrows(IOException.class, () -> WinRateSketch.decode(new byte[0]));
+    }
+}
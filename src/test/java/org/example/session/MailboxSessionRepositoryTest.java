@@ -0,0 +1,136 @@
+package org.example.session;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.session.MapSession;
+import org.springframework.session.MapSessionRepository;
+import org.springframework.session.Session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class MailboxSessionRepositoryTest {
+
+    private SessionExecutor executor;
+    private Map<String, Session> stored;
+    private AtomicInteger savesOutsideMailbox;
+    private MailboxSessionRepository<MapSession> repository;
+
+    @Before
+    public void setUp() {
+        executor = new SessionExecutor(4);
+        stored = new ConcurrentHashMap<>();
+        savesOutsideMailbox = new AtomicInteger();
+        repository = new MailboxSessionRepository<>(new MapSessionRepository(stored) {
+            @Override
+            public void save(MapSession session) {
+                if (!executor.runsTaskOf(session.getId())) {
+                    savesOutsideMailbox.incrementAndGet();
+                }
+                super.save(session);
+            }
+        }, executor);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        executor.close();
+    }
+
+    @Test
+    public void requestSaveWaitsForQueuedTasksTest() throws Exception {
+        MapSession session = repository.createSession();
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(session.getId(), () -> await(release));
+
+        repository.save(session);
+
+        assertNull(stored.get(session.getId()));
+        release.countDown();
+        executor.submit(session.getId(), () -> null).get(5, TimeUnit.SECONDS);
+        assertNotNull(stored.get(session.getId()));
+        assertEquals(0, savesOutsideMailbox.get());
+    }
+
+    @Test
+    public void tasksGetTheCreatedSessionTest() throws Exception {
+        MapSession session = repository.createSession();
+        String id = session.getId();
+
+        assertNull(repository.findById(id));
+        assertSame(session, executor.submit(id, () -> repository.findById(id)).get(5, TimeUnit.SECONDS));
+
+        executor.submit(id, () -> {
+            repository.save(session);
+            return null;
+        }).get(5, TimeUnit.SECONDS);
+
+        assertNotNull(stored.get(id));
+        assertNotSame(session, executor.submit(id, () -> repository.findById(id)).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void concurrentRequestsKeepEveryMoveTest() throws Exception {
+        MapSession session = repository.createSession();
+        String id = session.getId();
+        session.setAttribute("moves", new int[1]);
+        repository.save(session);
+        int threads = 8;
+        int perThread = 200;
+
+        List<Thread> requests = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    MapSession copy = repository.findById(id); // loaded when the request starts
+                    executor.submit(id, () -> {
+                        MapSession current = repository.findById(id);
+                        int[] moves = current.getAttribute("moves");
+                        moves[0]++;
+                        current.setAttribute("moves", moves);
+                        repository.save(current);
+                        return null;
+                    });
+                    repository.save(copy); // saved when the request ends
+                }
+            });
+            requests.add(thread);
+            thread.start();
+        }
+        for (Thread thread : requests) {
+            thread.join();
+        }
+
+        int[] moves = executor.submit(id, () -> repository.findById(id).<int[]>getAttribute("moves"))
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(threads * perThread, moves[0]);
+        assertEquals(0, savesOutsideMailbox.get());
+    }
+
+    @Test
+    public void closedExecutorSavesDirectlyTest() throws Exception {
+        MapSession session = repository.createSession();
+        executor.close();
+
+        repository.save(session);
+
+        assertNotNull(stored.get(session.getId()));
+    }
+
+    private static Void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+            return null;
+        } catch (InterruptedException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
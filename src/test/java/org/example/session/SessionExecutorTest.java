@@ -0,0 +1,142 @@
+package org.example.session;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SessionExecutorTest {
+
+    private SessionExecutor executor;
+
+    @Before
+    public void setUp() {
+        executor = new SessionExecutor(4);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        executor.close();
+    }
+
+    @Test
+    public void sessionTasksRunInOrderOneAtATimeTest() throws Exception {
+        int tasks = 10 * SessionExecutor.DRAIN_BATCH;
+        AtomicInteger running = new AtomicInteger();
+        List<Integer> order = new ArrayList<>();
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            int task = i;
+            results.add(executor.submit("session", () -> {
+                boolean alone = running.incrementAndGet() == 1;
+                order.add(task);
+                running.decrementAndGet();
+                return alone;
+            }));
+        }
+        for (CompletableFuture<Boolean> result : results) {
+            assertTrue(result.get(5, TimeUnit.SECONDS));
+        }
+        for (int i = 0; i < tasks; i++) {
+            assertEquals(i, (int) order.get(i));
+        }
+    }
+
+    @Test
+    public void sessionsRunInParallelTest() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        CompletableFuture<Boolean> first = executor.submit("first", () -> await(started));
+        CompletableFuture<Boolean> second = executor.submit("second", () -> await(started));
+
+        // each task only finishes once the other one has started
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertTrue(second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void concurrentSubmittersTest() throws Exception {
+        int threads = 8;
+        int perThread = 1000;
+        int[] counter = new int[1];
+        List<Thread> submitters = new ArrayList<>();
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    CompletableFuture<Integer> result = executor.submit("session", () -> ++counter[0]);
+                    synchronized (results) {
+                        results.add(result);
+                    }
+                }
+            });
+            submitters.add(thread);
+            thread.start();
+        }
+        for (Thread thread : submitters) {
+            thread.join();
+        }
+        synchronized (results) {
+            for (CompletableFuture<Integer> result : results) {
+                result.get(5, TimeUnit.SECONDS);
+            }
+        }
+        assertEquals(threads * perThread, executor.submit("session", () -> counter[0]).get(5, TimeUnit.SECONDS).intValue());
+    }
+
+    @Test
+    public void failedTaskTest() throws Exception {
+        CompletableFuture<String> failed = executor.submit("session", () -> {
+            throw new IllegalStateException("boom");
+        });
+        CompletableFuture<String> next = executor.submit("session", () -> "next");
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof IllegalStateException);
+        assertEquals("next", next.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void idleMailboxesAreRemovedTest() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            executor.submit("session-" + i % 10, () -> null);
+        }
+        executor.submit("session-0", () -> null).get(5, TimeUnit.SECONDS);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.activeSessions() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, executor.activeSessions());
+    }
+
+    @Test
+    public void closedExecutorRejectsTest() throws Exception {
+        executor.submit("session", () -> null).get(5, TimeUnit.SECONDS);
+        executor.close();
+
+        CompletableFuture<String> rejected = executor.submit("session", () -> "late");
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof RejectedExecutionException);
+        assertEquals(0, executor.activeSessions());
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
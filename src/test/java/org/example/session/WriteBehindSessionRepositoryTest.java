@@ -0,0 +1,149 @@
+package org.example.session;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.session.MapSession;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class WriteBehindSessionRepositoryTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate transactions;
+    private GenericConversionService conversionService;
+
+    @Before
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("org/springframework/session/jdbc/schema-h2.sql")
+                .build();
+        jdbc = new JdbcTemplate(database);
+        transactions = new TransactionTemplate(new DataSourceTransactionManager(database));
+        conversionService = new GenericConversionService();
+        conversionService.addConverter(Object.class, byte[].class, new SerializingConverter());
+        conversionService.addConverter(byte[].class, Object.class, new DeserializingConverter());
+    }
+
+    @After
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    private WriteBehindSessionRepository repository(int batchSize) {
+        return new WriteBehindSessionRepository(jdbc, transactions, conversionService, batchSize, Duration.ofMinutes(10));
+    }
+
+    private int storedSessions() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM SPRING_SESSION", Integer.class);
+    }
+
+    @Test
+    public void savesAreCoalescedUntilFlushTest() {
+        WriteBehindSessionRepository repository = repository(100);
+        MapSession session = repository.createSession();
+        for (int i = 0; i < 10; i++) {
+            session.setAttribute("moves", i);
+            repository.save(session);
+        }
+
+        assertEquals(0, storedSessions());
+        assertEquals(1, repository.pendingWrites());
+        assertEquals(9, (int) repository.findById(session.getId()).<Integer>getAttribute("moves"));
+
+        repository.flush();
+
+        assertEquals(1, storedSessions());
+        assertEquals(0, repository.pendingWrites());
+    }
+
+    @Test
+    public void flushedSessionIsLoadedTest() {
+        WriteBehindSessionRepository repository = repository(100);
+        MapSession session = repository.createSession();
+        session.setAttribute("player", "ROCK");
+        session.setMaxInactiveInterval(Duration.ofDays(7));
+        repository.save(session);
+        repository.flush();
+
+        MapSession loaded = repository(100).findById(session.getId());
+
+        assertNotNull(loaded);
+        assertEquals("ROCK", loaded.getAttribute("player"));
+        assertEquals(Duration.ofDays(7), loaded.getMaxInactiveInterval());
+        assertEquals(session.getCreationTime().toEpochMilli(), loaded.getCreationTime().toEpochMilli());
+    }
+
+    @Test
+    public void flushWritesAttributesAsSavedTest() {
+        WriteBehindSessionRepository repository = repository(100);
+        MapSession session = repository.createSession();
+        ArrayList<String> moves = new ArrayList<>(Collections.singletonList("ROCK"));
+        session.setAttribute("moves", moves);
+        repository.save(session);
+        moves.add("PAPER"); // a later request changes the live object before the flush
+        repository.flush();
+
+        MapSession loaded = repository(100).findById(session.getId());
+
+        assertEquals(Collections.singletonList("ROCK"), loaded.getAttribute("moves"));
+    }
+
+    @Test
+    public void batchSizeTriggersFlushTest() throws InterruptedException {
+        WriteBehindSessionRepository repository = repository(3);
+        for (int i = 0; i < 3; i++) {
+            repository.save(repository.createSession());
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (storedSessions() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(3, storedSessions());
+        repository.destroy();
+    }
+
+    @Test
+    public void deleteTest() {
+        WriteBehindSessionRepository repository = repository(100);
+        MapSession session = repository.createSession();
+        session.setAttribute("player", "PAPER");
+        repository.save(session);
+        repository.flush();
+
+        repository.deleteById(session.getId());
+
+        assertNull(repository.findById(session.getId()));
+        repository.flush();
+        assertEquals(0, storedSessions());
+        assertEquals(0, (int) jdbc.queryForObject("SELECT COUNT(*) FROM SPRING_SESSION_ATTRIBUTES", Integer.class));
+    }
+
+    @Test
+    public void destroyFlushesTest() {
+        WriteBehindSessionRepository repository = repository(100);
+        repository.save(repository.createSession());
+        repository.save(repository.createSession());
+
+        repository.destroy();
+
+        assertEquals(2, storedSessions());
+    }
+}
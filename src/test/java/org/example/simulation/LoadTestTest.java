@@ -0,0 +1,120 @@
+package org.example.simulation;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.example.service.RPSResolver.Move;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class LoadTestTest {
+
+    private HttpServer server;
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final Map<String, AtomicInteger> plays = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> stops = new ConcurrentHashMap<>();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/play/", exchange -> {
+            String session = session(exchange);
+            plays.computeIfAbsent(session, s -> new AtomicInteger()).incrementAndGet();
+            respond(exchange, 200, "{\"playerMove\":\"ROCK\",\"aiMove\":\"PAPER\",\"result\":\"DEFEAT\"}");
+        });
+        server.createContext("/stop", exchange -> {
+            String session = session(exchange);
+            stops.computeIfAbsent(session, s -> new AtomicInteger()).incrementAndGet();
+            respond(exchange, "PUT".equals(exchange.getRequestMethod()) ? 200 : 405, "{}");
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private String session(HttpExchange exchange) {
+        String cookie = exchange.getRequestHeaders().getFirst("Cookie");
+        if (cookie != null && cookie.startsWith("SESSION=")) {
+            return cookie.substring("SESSION=".length());
+        }
+        String session = String.valueOf(sessions.incrementAndGet());
+        exchange.getResponseHeaders().add("Set-Cookie", "SESSION=" + session + "; Path=/; HttpOnly");
+        return session;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Test
+    public void invalidCountsTest() throws Exception {
+        URL base = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+        assertThrows(IllegalArgumentException.class, () -> new LoadTest(base, 1, 1, 0, 0, 1, 42));
+        assertThrows(IllegalArgumentException.class, () -> new LoadTest(base, 0, 1, 1, 0, 1, 42));
+    }
+
+    @Test
+    public void playersKeepTheirSessionsTest() throws Exception {
+        URL base = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+
+        LoadTestReport report = new LoadTest(base, 20, 3, 10, 0, 4, 42).run();
+
+        assertEquals(20, sessions.get());
+        for (int session = 1; session <= 20; session++) {
+            assertEquals(30, plays.get(String.valueOf(session)).get());
+            assertEquals(3, stops.get(String.valueOf(session)).get());
+        }
+        assertEquals(0, report.errors());
+        assertEquals(20 * 3 * 11, report.requests());
+        assertEquals(20 * 3 * 10, report.play().getTotalCount());
+        assertTrue(report.play().getValueAtPercentile(99.9) >= report.play().getValueAtPercentile(50));
+        assertTrue(report.toString().contains("p99.9"));
+    }
+
+    @Test
+    public void errorsAreCountedTest() throws Exception {
+        server.removeContext("/stop");
+        URL base = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+
+        LoadTestReport report = new LoadTest(base, 2, 2, 1, 0, 2, 1).run();
+
+        assertEquals(4, report.errors());
+        assertEquals(4, report.play().getTotalCount());
+    }
+
+    @Test
+    public void cookieJarTest() {
+        CookieJar jar = new CookieJar();
+        jar.store("SESSION=abc; Path=/; HttpOnly");
+        jar.store("OTHER=1");
+        assertEquals("abc", jar.get("SESSION"));
+
+        jar.store("SESSION=; Max-Age=0; Path=/");
+        assertNull(jar.get("SESSION"));
+        assertEquals("1", jar.get("OTHER"));
+    }
+
+    @Test
+    public void aiMoveTest() {
+        assertEquals(Move.SCISSORS, LoadTest.aiMove("{\"playerMove\":\"PAPER\",\"aiMove\":\"SCISSORS\"}"));
+        assertNull(LoadTest.aiMove("{}"));
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.simulation;
+
+import org.example.service.RPSResolver.Decision;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class TournamentTest {
+
+    private final Tournament tournament = new Tournament(Tournament.markovStrategies(), Opponents.library(), 20, 200, 7);
+
+    @Test
+    public void reproducibleTest() {
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool parallel = new ForkJoinPool(4);
+        TournamentReport first = tournament.run(single);
+        TournamentReport second = tournament.run(parallel);
+        single.shutdown();
+        parallel.shutdown();
+
+        for (String opponent : Opponents.library().keySet()) {
+            for (Decision decision : Decision.values()) {
+                assertEquals(first.rounds("markov-2", opponent, decision), second.rounds("markov-2", opponent, decision));
+                assertEquals(first.rounds("markov-5", opponent, decision), second.rounds("markov-5", opponent, decision));
+            }
+        }
+    }
+
+    @Test
+    public void beatsScriptedOpponentsTest() {
+        TournamentReport report = tournament.run(ForkJoinPool.commonPool());
+
+        assertTrue(report.aiWinRate("markov-2", "cycle-3") > 0.9);
+        assertTrue(report.aiWinRate("markov-2", "cycle-8") > 0.8); // longer than the Markov context
+        assertTrue(report.aiWinRate("markov-2", "win-stay-lose-shift") > 0.6);
+        assertTrue(report.aiWinRate("markov-1", "rock-biased") > 0.4);
+        assertEquals(20 * 200, report.rounds("markov-3", "cycle-5", Decision.DEFEAT)
+                + report.rounds("markov-3", "cycle-5", Decision.VICTORY)
+                + report.rounds("markov-3", "cycle-5", Decision.TIE));
+    }
+}